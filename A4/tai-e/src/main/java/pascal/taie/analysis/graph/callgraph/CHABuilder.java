@@ -29,8 +29,10 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Sets;
 
 import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Queue;
 import java.util.Set;
 
@@ -39,18 +41,38 @@ import java.util.Set;
  */
 class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
+    private final Collection<JMethod> entries;
+
     private ClassHierarchy hierarchy;
 
+    CHABuilder(Collection<JMethod> entries) {
+        this.entries = entries;
+    }
+
     @Override
     public CallGraph<Invoke, JMethod> build() {
         hierarchy = World.get().getClassHierarchy();
-        return buildCallGraph(World.get().getMainMethod());
+        return buildCallGraph(entries);
     }
 
-    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+    private CallGraph<Invoke, JMethod> buildCallGraph(Collection<JMethod> entries) {
         DefaultCallGraph callGraph = new DefaultCallGraph();
-        callGraph.addEntryMethod(entry);
-        // TODO - finish me
+        entries.forEach(callGraph::addEntryMethod);
+        // all entry methods are seeded into one work list
+        Queue<JMethod> workList = new ArrayDeque<>(entries);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method)) {
+                callGraph.getCallSitesIn(method).forEach(callSite -> {
+                    CallKind kind = CallGraphs.getCallKind(callSite);
+                    for (JMethod callee : resolve(callSite)) {
+                        if (callGraph.addEdge(new Edge<>(kind, callSite, callee))) {
+                            workList.add(callee);
+                        }
+                    }
+                });
+            }
+        }
         return callGraph;
     }
 
@@ -58,8 +80,40 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      * Resolves call targets (callees) of a call site via CHA.
      */
     private Set<JMethod> resolve(Invoke callSite) {
-        // TODO - finish me
-        return null;
+        Set<JMethod> callees = Sets.newHybridSet();
+        MethodRef methodRef = callSite.getMethodRef();
+        JClass declaringClass = methodRef.getDeclaringClass();
+        Subsignature subsignature = methodRef.getSubsignature();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC, SPECIAL -> {
+                JMethod callee = dispatch(declaringClass, subsignature);
+                if (callee != null) {
+                    callees.add(callee);
+                }
+            }
+            case VIRTUAL, INTERFACE -> {
+                Queue<JClass> queue = new ArrayDeque<>();
+                Set<JClass> visited = Sets.newSet();
+                queue.add(declaringClass);
+                while (!queue.isEmpty()) {
+                    JClass jclass = queue.poll();
+                    if (!visited.add(jclass)) {
+                        continue;
+                    }
+                    JMethod callee = dispatch(jclass, subsignature);
+                    if (callee != null) {
+                        callees.add(callee);
+                    }
+                    if (jclass.isInterface()) {
+                        queue.addAll(hierarchy.getDirectSubinterfacesOf(jclass));
+                        queue.addAll(hierarchy.getDirectImplementorsOf(jclass));
+                    } else {
+                        queue.addAll(hierarchy.getDirectSubclassesOf(jclass));
+                    }
+                }
+            }
+        }
+        return callees;
     }
 
     /**
@@ -69,7 +123,12 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      * can be found.
      */
     private JMethod dispatch(JClass jclass, Subsignature subsignature) {
-        // TODO - finish me
+        for (JClass c = jclass; c != null; c = c.getSuperClass()) {
+            JMethod method = c.getDeclaredMethod(subsignature);
+            if (method != null && !method.isAbstract()) {
+                return method;
+            }
+        }
         return null;
     }
 }
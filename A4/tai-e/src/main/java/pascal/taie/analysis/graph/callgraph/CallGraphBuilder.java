@@ -25,15 +25,24 @@ package pascal.taie.analysis.graph.callgraph;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.ProgramAnalysis;
+import pascal.taie.World;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.ConfigException;
+import pascal.taie.config.Configs;
 import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.ClassHierarchyImpl;
+import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 public class CallGraphBuilder extends ProgramAnalysis {
 
@@ -46,8 +55,19 @@ public class CallGraphBuilder extends ProgramAnalysis {
      */
     private static final String SEP = " -> ";
 
+    /**
+     * Default number of entries in each top-N list of statistics.
+     */
+    private static final int DEFAULT_TOP = 10;
+
     private final String algorithm;
 
+    /**
+     * The builder for algorithm "incremental-cha", which is kept
+     * for updating the call graph by {@link #update}.
+     */
+    private IncrementalCHABuilder incrementalBuilder;
+
     public CallGraphBuilder(AnalysisConfig config) {
         super(config);
         algorithm = config.getOptions().getString("algorithm");
@@ -55,19 +75,117 @@ public class CallGraphBuilder extends ProgramAnalysis {
 
     @Override
     public CallGraph<Invoke, JMethod> analyze() {
+        if (algorithm.equals("snapshot")) {
+            CallGraph<Invoke, JMethod> callGraph =
+                    CallGraphSnapshot.load(getSnapshotFile());
+            takeAction(callGraph);
+            return callGraph;
+        }
         CGBuilder<Invoke, JMethod> builder;
         if (algorithm.equals("cha")) {
-            builder = new CHABuilder();
+            builder = new CHABuilder(getEntryMethods());
+        } else if (algorithm.equals("rta")) {
+            builder = new RTABuilder(getEntryMethods());
+        } else if (algorithm.equals("incremental-cha")) {
+            incrementalBuilder = new IncrementalCHABuilder(getEntryMethods());
+            builder = incrementalBuilder;
         } else {
             throw new ConfigException("Unknown call graph building algorithm: " + algorithm);
         }
         ClassHierarchyImpl.setCheckCHA(true);
         CallGraph<Invoke, JMethod> callGraph = builder.build();
         ClassHierarchyImpl.setCheckCHA(false);
+        callGraph = freezeIfEnabled(callGraph);
+        takeAction(callGraph);
+        return callGraph;
+    }
+
+    /**
+     * Updates the call graph built by algorithm "incremental-cha" for
+     * the given changes of classes, instead of rebuilding it.
+     *
+     * @see IncrementalCHABuilder#update(Collection, Collection, Collection)
+     */
+    public CallGraph<Invoke, JMethod> update(Collection<JClass> added,
+                                             Collection<JClass> removed,
+                                             Collection<JClass> changed) {
+        if (incrementalBuilder == null) {
+            throw new ConfigException("Call graph update is only supported by" +
+                    " algorithm incremental-cha, but current algorithm is " + algorithm);
+        }
+        ClassHierarchyImpl.setCheckCHA(true);
+        CallGraph<Invoke, JMethod> callGraph =
+                incrementalBuilder.update(added, removed, changed);
+        ClassHierarchyImpl.setCheckCHA(false);
+        callGraph = freezeIfEnabled(callGraph);
         takeAction(callGraph);
         return callGraph;
     }
 
+    /**
+     * Freezes the built call graph into a {@link FrozenCallGraph} if option
+     * "freeze" is true. The option is off by default, as a frozen call graph
+     * cannot be modified anymore and freezing itself takes time and memory.
+     */
+    private CallGraph<Invoke, JMethod> freezeIfEnabled(
+            CallGraph<Invoke, JMethod> callGraph) {
+        if (getOptions().getBooleanOrDefault("freeze", false) &&
+                callGraph instanceof DefaultCallGraph defaultCallGraph) {
+            return defaultCallGraph.freeze();
+        }
+        return callGraph;
+    }
+
+    /**
+     * Collects the entry methods specified by option "entries", which is
+     * a list (or a single item) of:
+     * <ul>
+     *     <li>main: the main method of the program (the default)</li>
+     *     <li>app-public: all public methods of application classes</li>
+     *     <li>other strings: regular expressions, and the methods
+     *     whose signatures match any of them are entry methods</li>
+     * </ul>
+     * All entry methods are seeded into one call graph construction.
+     */
+    private List<JMethod> getEntryMethods() {
+        Object option = getOptions().get("entries");
+        List<?> items = option == null ? List.of("main")
+                : option instanceof List<?> list ? list : List.of(option);
+        Set<JMethod> entries = Sets.newHybridOrderedSet();
+        List<Pattern> patterns = new ArrayList<>();
+        for (Object item : items) {
+            String entry = item.toString();
+            switch (entry) {
+                case "main" -> {
+                    JMethod main = World.get().getMainMethod();
+                    if (main != null) {
+                        entries.add(main);
+                    } else {
+                        logger.warn("No main method is given for entry \"main\"");
+                    }
+                }
+                case "app-public" -> World.get().getClassHierarchy()
+                        .applicationClasses()
+                        .map(JClass::getDeclaredMethods)
+                        .flatMap(Collection::stream)
+                        .filter(m -> m.isPublic() && !m.isAbstract())
+                        .forEach(entries::add);
+                default -> patterns.add(Pattern.compile(entry));
+            }
+        }
+        if (!patterns.isEmpty()) {
+            World.get().getClassHierarchy()
+                    .allClasses()
+                    .map(JClass::getDeclaredMethods)
+                    .flatMap(Collection::stream)
+                    .filter(m -> !m.isAbstract() && patterns.stream()
+                            .anyMatch(p -> p.matcher(m.getSignature()).matches()))
+                    .forEach(entries::add);
+        }
+        logger.info("#entry methods: {}", entries.size());
+        return List.copyOf(entries);
+    }
+
     private void takeAction(CallGraph<Invoke, JMethod> callGraph) {
         String action = getOptions().getString("action");
         if (action == null) {
@@ -77,9 +195,25 @@ public class CallGraphBuilder extends ProgramAnalysis {
             logCallGraph(callGraph);
             String file = getOptions().getString("file");
             CallGraphs.dumpCallGraph(callGraph, file);
+        } else if (action.equals("stats")) {
+            Object top = getOptions().get("top");
+            CallGraphStatistics.report(callGraph,
+                    top != null ? (Integer) top : DEFAULT_TOP);
+        } else if (action.equals("save")) {
+            CallGraphSnapshot.save(callGraph, getSnapshotFile());
         }
     }
 
+    /**
+     * @return path of the binary call graph snapshot, which is given by
+     * option "snapshot" and defaults to cg.bin in the output directory.
+     */
+    private String getSnapshotFile() {
+        String snapshot = getOptions().getString("snapshot");
+        return snapshot != null ? snapshot :
+                new File(Configs.getOutputDir(), "cg.bin").toString();
+    }
+
     static void logCallGraph(CallGraph<Invoke, JMethod> callGraph) {
         Comparator<JMethod> cmp = Comparator.comparing(JMethod::toString);
         logger.info("#reachable methods: {}", callGraph.getNumberOfMethods());
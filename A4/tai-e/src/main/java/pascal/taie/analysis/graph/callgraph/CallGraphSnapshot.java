@@ -0,0 +1,332 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes call graphs in a binary format, so that a call graph
+ * can be reused by later runs without being rebuilt.
+ * <p>
+ * The format consists of the following sections (all numbers are
+ * 32-bit big-endian integers unless stated otherwise):
+ * <ul>
+ *     <li>header: magic number, format version and fingerprint of the
+ *     program (a 64-bit integer, see {@link #fingerprint()})</li>
+ *     <li>string table: number of strings, and each string as length
+ *     and UTF-8 bytes</li>
+ *     <li>methods: number of methods, and each method as string ids
+ *     of its declaring class and subsignature</li>
+ *     <li>entry methods: number of entries and their method ids</li>
+ *     <li>call sites: number of call sites, and each call site as
+ *     the method id of its container and its statement index</li>
+ *     <li>call edges: number of edges, and each edge as call site id,
+ *     callee method id and ordinal of {@link CallKind} (one byte)</li>
+ * </ul>
+ * The files are written and read via memory-mapped buffers. Loading
+ * checks the fingerprint against current program and validates all ids,
+ * indexes and call kinds in the file. It builds no IR; the statement
+ * index of a call site is checked when the call site is first resolved
+ * (see {@link FrozenCallGraph#getCallSite(int)}). As a memory-mapped
+ * buffer holds at most 2 GB, larger snapshots are rejected.
+ */
+public final class CallGraphSnapshot {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphSnapshot.class);
+
+    private static final int MAGIC = 0x54434742; // "TCGB"
+
+    private static final int VERSION = 2;
+
+    private static final int N_KINDS = CallKind.values().length;
+
+    /**
+     * Fingerprint of the program of current {@link World}, computed on
+     * first use and discarded when the World is reset.
+     */
+    private static Long fingerprint;
+
+    static {
+        World.registerResetCallback(CallGraphSnapshot::resetFingerprint);
+    }
+
+    private CallGraphSnapshot() {
+    }
+
+    /**
+     * Writes the given call graph to the given file.
+     */
+    public static void save(CallGraph<Invoke, JMethod> callGraph, String output) {
+        logger.info("Saving call graph snapshot to {} ...", output);
+        FrozenCallGraph cg = callGraph instanceof FrozenCallGraph frozen ?
+                frozen : FrozenCallGraph.freeze(callGraph);
+        // intern class names and subsignatures
+        Map<String, Integer> stringIds = new LinkedHashMap<>();
+        int nMethods = cg.getNumberOfMethods();
+        int[] methodStrings = new int[nMethods * 2];
+        for (int m = 0; m < nMethods; ++m) {
+            JMethod method = cg.getMethod(m);
+            methodStrings[2 * m] = intern(stringIds,
+                    method.getDeclaringClass().getName());
+            methodStrings[2 * m + 1] = intern(stringIds,
+                    method.getSubsignature().toString());
+        }
+        List<byte[]> strings = new ArrayList<>(stringIds.size());
+        long size = 4 * 3 + 8;
+        for (String s : stringIds.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            strings.add(bytes);
+            size += 4 + bytes.length;
+        }
+        int[] entryIds = cg.getEntryIds();
+        int nCallSites = cg.getNumberOfCallSites();
+        int nEdges = cg.getNumberOfEdges();
+        size += 4 + 8L * nMethods
+                + 4 + 4L * entryIds.length
+                + 4 + 8L * nCallSites
+                + 4 + 9L * nEdges;
+        checkSize(size, output);
+        try (FileChannel channel = FileChannel.open(Path.of(output),
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(fingerprint());
+            buffer.putInt(strings.size());
+            for (byte[] bytes : strings) {
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+            }
+            buffer.putInt(nMethods);
+            for (int id : methodStrings) {
+                buffer.putInt(id);
+            }
+            buffer.putInt(entryIds.length);
+            for (int id : entryIds) {
+                buffer.putInt(id);
+            }
+            buffer.putInt(nCallSites);
+            for (int c = 0; c < nCallSites; ++c) {
+                buffer.putInt(cg.getCallSiteContainerId(c));
+                buffer.putInt(cg.getCallSiteIndex(c));
+            }
+            buffer.putInt(nEdges);
+            for (int e = 0; e < nEdges; ++e) {
+                buffer.putInt(cg.getEdgeCallSiteId(e));
+                buffer.putInt(cg.getEdgeCalleeId(e));
+                buffer.put((byte) cg.getEdgeKind(e).ordinal());
+            }
+            buffer.force();
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to save call graph snapshot to "
+                    + output, e);
+        }
+    }
+
+    private static int intern(Map<String, Integer> stringIds, String s) {
+        return stringIds.computeIfAbsent(s, unused -> stringIds.size());
+    }
+
+    /**
+     * Computes the fingerprint of current program from the names of
+     * all classes and the subsignatures of their declared methods.
+     * Changes of method bodies that keep all signatures are not reflected
+     * by the fingerprint. The fingerprint is computed once per World,
+     * as saving and loading snapshots do not change the program.
+     */
+    private static synchronized long fingerprint() {
+        if (fingerprint == null) {
+            fingerprint = computeFingerprint();
+        }
+        return fingerprint;
+    }
+
+    private static synchronized void resetFingerprint() {
+        fingerprint = null;
+    }
+
+    private static long computeFingerprint() {
+        long hash = 1125899906842597L;
+        List<JClass> classes = World.get().getClassHierarchy()
+                .allClasses()
+                .sorted(Comparator.comparing(JClass::getName))
+                .toList();
+        for (JClass jclass : classes) {
+            hash = 31 * hash + jclass.getName().hashCode();
+            List<String> subsignatures = jclass.getDeclaredMethods()
+                    .stream()
+                    .map(m -> m.getSubsignature().toString())
+                    .sorted()
+                    .toList();
+            for (String subsignature : subsignatures) {
+                hash = 31 * hash + subsignature.hashCode();
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Reads a call graph from the given file. The methods and call sites
+     * in the file are resolved in the class hierarchy of current {@link World}.
+     */
+    public static FrozenCallGraph load(String input) {
+        logger.info("Loading call graph snapshot from {} ...", input);
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        try (FileChannel channel = FileChannel.open(Path.of(input),
+                StandardOpenOption.READ)) {
+            checkSize(channel.size(), input);
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new AnalysisException(input +
+                        " is not a call graph snapshot of version " + VERSION);
+            }
+            if (buffer.getLong() != fingerprint()) {
+                throw new AnalysisException("Snapshot " + input +
+                        " was saved for a different program");
+            }
+            String[] strings = new String[readCount(buffer, 4, input)];
+            for (int i = 0; i < strings.length; ++i) {
+                byte[] bytes = new byte[readCount(buffer, 1, input)];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            JMethod[] methods = new JMethod[readCount(buffer, 8, input)];
+            for (int m = 0; m < methods.length; ++m) {
+                String className = strings[readId(buffer, strings.length, input)];
+                String subsignature = strings[readId(buffer, strings.length, input)];
+                JClass jclass = hierarchy.getClass(className);
+                JMethod method = jclass == null ? null :
+                        jclass.getDeclaredMethod(Subsignature.get(subsignature));
+                if (method == null) {
+                    throw new AnalysisException("Cannot find method <" +
+                            className + ": " + subsignature + "> in snapshot " + input);
+                }
+                methods[m] = method;
+            }
+            int[] entryIds = new int[readCount(buffer, 4, input)];
+            for (int i = 0; i < entryIds.length; ++i) {
+                entryIds[i] = readId(buffer, methods.length, input);
+            }
+            int nCallSites = readCount(buffer, 8, input);
+            int[] callSiteContainers = new int[nCallSites];
+            int[] callSiteIndexes = new int[nCallSites];
+            for (int c = 0; c < nCallSites; ++c) {
+                callSiteContainers[c] = readId(buffer, methods.length, input);
+                callSiteIndexes[c] = readId(buffer, Integer.MAX_VALUE, input);
+                if (c > 0 && (callSiteContainers[c] < callSiteContainers[c - 1] ||
+                        callSiteContainers[c] == callSiteContainers[c - 1] &&
+                                callSiteIndexes[c] <= callSiteIndexes[c - 1])) {
+                    throw corrupted(input, "call sites are not in order");
+                }
+            }
+            int nEdges = readCount(buffer, 9, input);
+            int[] edgeCallSites = new int[nEdges];
+            int[] edgeCallees = new int[nEdges];
+            byte[] edgeKinds = new byte[nEdges];
+            for (int e = 0; e < nEdges; ++e) {
+                edgeCallSites[e] = readId(buffer, nCallSites, input);
+                if (e > 0 && edgeCallSites[e] < edgeCallSites[e - 1]) {
+                    throw corrupted(input, "edges are not in order");
+                }
+                edgeCallees[e] = readId(buffer, methods.length, input);
+                edgeKinds[e] = buffer.get();
+                if (edgeKinds[e] < 0 || edgeKinds[e] >= N_KINDS) {
+                    throw corrupted(input, "invalid call kind " + edgeKinds[e]);
+                }
+            }
+            return new FrozenCallGraph(methods, entryIds,
+                    callSiteContainers, callSiteIndexes, null,
+                    edgeCallSites, edgeCallees, edgeKinds);
+        } catch (BufferUnderflowException e) {
+            throw corrupted(input, "unexpected end of file");
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to load call graph snapshot from "
+                    + input, e);
+        }
+    }
+
+    /**
+     * Reads the number of the following elements, and checks that
+     * the rest of the buffer can hold them.
+     */
+    private static int readCount(ByteBuffer buffer, int elementSize, String input) {
+        int n = buffer.getInt();
+        if (n < 0 || (long) n * elementSize > buffer.remaining()) {
+            throw corrupted(input, "invalid count " + n);
+        }
+        return n;
+    }
+
+    /**
+     * Reads an id, and checks that it is in [0, bound).
+     */
+    private static int readId(ByteBuffer buffer, int bound, String input) {
+        int id = buffer.getInt();
+        if (id < 0 || id >= bound) {
+            throw corrupted(input, "invalid id " + id);
+        }
+        return id;
+    }
+
+    /**
+     * Checks that a snapshot of the given size can be memory-mapped
+     * as one buffer.
+     */
+    private static void checkSize(long size, String file) {
+        if (size > Integer.MAX_VALUE) {
+            throw new AnalysisException("Call graph snapshot " + file +
+                    " has " + size + " bytes, which exceeds the limit of " +
+                    Integer.MAX_VALUE + " bytes of a memory-mapped buffer");
+        }
+    }
+
+    private static AnalysisException corrupted(String input, String reason) {
+        return new AnalysisException("Corrupted call graph snapshot "
+                + input + ": " + reason);
+    }
+}
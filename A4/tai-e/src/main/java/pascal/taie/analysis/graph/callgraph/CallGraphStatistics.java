@@ -0,0 +1,161 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.SCC;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Computes and logs statistics of a call graph, which help to locate
+ * where the imprecision of call graph construction comes from, e.g.,
+ * <ul>
+ *     <li>distribution of the number of callees per call site,
+ *     overall and for each {@link CallKind}</li>
+ *     <li>top-N call sites with the most callees</li>
+ *     <li>top-N largest strongly connected components</li>
+ *     <li>top-N packages with the most reachable methods</li>
+ * </ul>
+ * Each statistic is computed in one pass over the call graph.
+ */
+final class CallGraphStatistics {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphStatistics.class);
+
+    /**
+     * Number of buckets of the fan-out distribution. Bucket 0 counts
+     * the call sites without callees, and bucket i (i > 0) counts the
+     * call sites with [2^(i-1), 2^i) callees (the last bucket is open).
+     */
+    private static final int BUCKETS = 12;
+
+    private CallGraphStatistics() {
+    }
+
+    private record CallSiteFanOut(Invoke callSite, int fanOut) {
+    }
+
+    static void report(CallGraph<Invoke, JMethod> callGraph, int topN) {
+        logger.info("#reachable methods: {}", callGraph.getNumberOfMethods());
+        logger.info("#call graph edges: {}", callGraph.getNumberOfEdges());
+        reportFanOuts(callGraph, topN);
+        reportSCCs(callGraph, topN);
+        reportPackages(callGraph, topN);
+    }
+
+    private static void reportFanOuts(CallGraph<Invoke, JMethod> callGraph, int topN) {
+        long[] total = new long[BUCKETS];
+        Map<CallKind, long[]> kindToBuckets = new EnumMap<>(CallKind.class);
+        // min-heap keeping the call sites with top-N fan-outs
+        PriorityQueue<CallSiteFanOut> top = new PriorityQueue<>(
+                Comparator.comparingInt(CallSiteFanOut::fanOut));
+        callGraph.reachableMethods().forEach(method -> {
+            for (Invoke callSite : callGraph.getCallSitesIn(method)) {
+                int fanOut = callGraph.getCalleesOf(callSite).size();
+                int bucket = Math.min(BUCKETS - 1,
+                        32 - Integer.numberOfLeadingZeros(fanOut));
+                ++total[bucket];
+                ++kindToBuckets.computeIfAbsent(CallGraphs.getCallKind(callSite),
+                        unused -> new long[BUCKETS])[bucket];
+                if (top.size() < topN) {
+                    top.add(new CallSiteFanOut(callSite, fanOut));
+                } else if (!top.isEmpty() && top.peek().fanOut() < fanOut) {
+                    top.poll();
+                    top.add(new CallSiteFanOut(callSite, fanOut));
+                }
+            }
+        });
+        logger.info("---------- Fan-out distribution: ----------");
+        logger.info("{}: {}", "ALL", toString(total));
+        kindToBuckets.forEach((kind, buckets) ->
+                logger.info("{}: {}", kind, toString(buckets)));
+        logger.info("---------- Top-{} megamorphic call sites: ----------", topN);
+        top.stream()
+                .sorted(Comparator.comparingInt(CallSiteFanOut::fanOut).reversed())
+                .forEach(s -> logger.info("{} {}", s.fanOut(),
+                        CallGraphs.toString(s.callSite())));
+    }
+
+    private static String toString(long[] buckets) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < buckets.length; ++i) {
+            if (buckets[i] == 0) {
+                continue;
+            }
+            if (!sb.isEmpty()) {
+                sb.append(", ");
+            }
+            if (i == 0) {
+                sb.append('0');
+            } else if (i == 1) {
+                sb.append('1');
+            } else if (i == buckets.length - 1) {
+                sb.append(">=").append(1 << (i - 1));
+            } else {
+                sb.append(1 << (i - 1)).append('-').append((1 << i) - 1);
+            }
+            sb.append(": ").append(buckets[i]);
+        }
+        return sb.toString();
+    }
+
+    private static void reportSCCs(CallGraph<Invoke, JMethod> callGraph, int topN) {
+        List<List<JMethod>> components = new SCC<>(callGraph).getTrueComponents();
+        logger.info("---------- Top-{} largest SCCs (of {}): ----------",
+                topN, components.size());
+        components.stream()
+                .sorted(Comparator.<List<JMethod>>comparingInt(List::size).reversed())
+                .limit(topN)
+                .forEach(scc -> logger.info("{} methods, e.g., {}", scc.size(),
+                        scc.stream()
+                                .map(JMethod::toString)
+                                .min(Comparator.naturalOrder())
+                                .orElse("")));
+    }
+
+    private static void reportPackages(CallGraph<Invoke, JMethod> callGraph, int topN) {
+        Map<String, Integer> packageToCount = Maps.newMap();
+        callGraph.reachableMethods().forEach(method -> {
+            String className = method.getDeclaringClass().getName();
+            int index = className.lastIndexOf('.');
+            String pkg = index >= 0 ? className.substring(0, index) : "<default>";
+            packageToCount.merge(pkg, 1, Integer::sum);
+        });
+        logger.info("---------- Top-{} packages by reachable methods (of {}): ----------",
+                topN, packageToCount.size());
+        packageToCount.entrySet()
+                .stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(topN)
+                .forEach(e -> logger.info("{}: {}", e.getKey(), e.getValue()));
+    }
+}
@@ -33,14 +33,20 @@ import pascal.taie.ir.exp.InvokeSpecial;
 import pascal.taie.ir.exp.InvokeStatic;
 import pascal.taie.ir.exp.InvokeVirtual;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.IDProvider;
 import pascal.taie.util.MapIDProvider;
+import pascal.taie.util.collection.Sets;
 import pascal.taie.util.graph.DotDumper;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -78,11 +84,13 @@ public final class CallGraphs {
      */
     static void dumpCallGraph(CallGraph<Invoke, JMethod> callGraph, String output) {
         if (output == null) {
-            output = new File(Configs.getOutputDir(),
+            // avoid overlong file names when there are many entry methods
+            String name = callGraph.entryMethods().count() == 1 ?
                     callGraph.entryMethods()
                             .map(m -> m.getDeclaringClass() + "." + m.getName())
-                            .collect(Collectors.joining("-")) + "-cg.dot")
-                    .toString();
+                            .collect(Collectors.joining("-")) + "-cg.dot" :
+                    "cg.dot";
+            output = new File(Configs.getOutputDir(), name).toString();
         }
         logger.info("Dumping call graph to {} ...", output);
         IDProvider<JMethod> provider = new MapIDProvider<>();
@@ -96,6 +104,41 @@ public final class CallGraphs {
                 .dump(callGraph, output);
     }
 
+    /**
+     * Looks up the target method based on given class and method subsignature.
+     *
+     * @return the dispatched target method, or null if no satisfying method
+     * can be found.
+     */
+    static JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        for (JClass c = jclass; c != null; c = c.getSuperClass()) {
+            JMethod method = c.getDeclaredMethod(subsignature);
+            if (method != null && !method.isAbstract()) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the given class and all its superclasses and superinterfaces.
+     */
+    static Set<JClass> superTypesOf(JClass jclass) {
+        Set<JClass> superTypes = Sets.newSet();
+        Queue<JClass> queue = new ArrayDeque<>();
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            if (superTypes.add(c)) {
+                if (c.getSuperClass() != null) {
+                    queue.add(c.getSuperClass());
+                }
+                queue.addAll(c.getInterfaces());
+            }
+        }
+        return superTypes;
+    }
+
     public static String toString(Invoke invoke) {
         return invoke.getContainer() + IRPrinter.toString(invoke);
     }
@@ -26,6 +26,7 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -40,6 +41,14 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
         entryMethods.add(entryMethod);
     }
 
+    /**
+     * Removes an entry method from this call graph. The method is still
+     * reachable if it has been added as a reachable method.
+     */
+    public void removeEntryMethod(JMethod entryMethod) {
+        entryMethods.remove(entryMethod);
+    }
+
     /**
      * Adds a reachable method to this call graph.
      *
@@ -77,6 +86,52 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
         }
     }
 
+    /**
+     * Removes a call graph edge from this call graph.
+     *
+     * @param edge the call edge to be removed
+     * @return true if the call graph changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean removeEdge(Edge<Invoke, JMethod> edge) {
+        if (callSiteToEdges.remove(edge.getCallSite(), edge)) {
+            calleeToEdges.remove(edge.getCallee(), edge);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Removes a reachable method from this call graph, together with
+     * the call sites in the method and the call edges from/to the method.
+     *
+     * @return true if this call graph changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean removeReachableMethod(JMethod method) {
+        if (reachableMethods.remove(method)) {
+            for (Invoke callSite : List.copyOf(callSitesIn.get(method))) {
+                List.copyOf(callSiteToEdges.get(callSite)).forEach(this::removeEdge);
+                callSiteToContainer.remove(callSite);
+            }
+            callSitesIn.removeAll(method);
+            List.copyOf(calleeToEdges.get(method)).forEach(this::removeEdge);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Converts this call graph to an immutable and compact form.
+     * This should be called after the call graph construction finishes,
+     * and the returned call graph is used by the clients afterwards.
+     * Freezing does not build any IR.
+     */
+    public FrozenCallGraph freeze() {
+        return FrozenCallGraph.freeze(this);
+    }
+
     @Override
     public JMethod getContainerOf(Invoke invoke) {
         return invoke.getContainer();
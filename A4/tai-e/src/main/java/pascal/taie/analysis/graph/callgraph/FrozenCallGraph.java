@@ -0,0 +1,860 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable call graph whose methods, call sites and call edges are
+ * numbered by dense integer ids, and whose adjacency relations are
+ * stored in CSR (compressed sparse row) arrays.
+ * <p>
+ * Call sites are numbered in groups of their containing methods, and
+ * call edges are numbered in groups of their call sites, so that all
+ * call sites (edges) of a method (call site) occupy a contiguous range
+ * of ids. The sets returned by the queries of this call graph are
+ * read-only views over such ranges, thus no collections are copied.
+ * The {@link Edge}s and {@link MethodEdge}s returned by the queries are
+ * created once per edge and then reused. Clients that iterate the graph
+ * intensively can also use the id-based methods, e.g.,
+ * {@link #getCallSitesBegin(int)} and {@link #getEdgeCalleeId(int)},
+ * which do not allocate at all.
+ * <p>
+ * A call site is identified by its container and its statement index,
+ * so that a call graph can be loaded from a snapshot without building IR.
+ * The {@link Invoke} of such a call site is resolved from
+ * {@link JMethod#getIR()} of its container when it is first queried.
+ * <p>
+ * A frozen call graph is obtained by {@link DefaultCallGraph#freeze()}
+ * after the call graph construction finishes.
+ */
+public class FrozenCallGraph implements CallGraph<Invoke, JMethod> {
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    /**
+     * Method id -> method.
+     */
+    private final JMethod[] methods;
+
+    private final IdMap<JMethod> methodIds;
+
+    private final int[] entryIds;
+
+    /**
+     * Call site id -> call site, resolved on demand.
+     */
+    private final Invoke[] callSites;
+
+    /**
+     * Call site id -> id of the method containing the call site.
+     */
+    private final int[] callSiteContainers;
+
+    /**
+     * Call site id -> index of the call site in the IR of its container.
+     * The indexes of the call sites in a method are in ascending order.
+     */
+    private final int[] callSiteIndexes;
+
+    /**
+     * Call sites of method m are in [callSiteOffsets[m], callSiteOffsets[m + 1]).
+     */
+    private final int[] callSiteOffsets;
+
+    /**
+     * Edge id -> call site id.
+     */
+    private final int[] edgeCallSites;
+
+    /**
+     * Edge id -> callee id.
+     */
+    private final int[] edgeCallees;
+
+    /**
+     * Edge id -> ordinal of call kind.
+     */
+    private final byte[] edgeKinds;
+
+    /**
+     * Edges of call site c are in [edgeOffsets[c], edgeOffsets[c + 1]).
+     */
+    private final int[] edgeOffsets;
+
+    /**
+     * Ids of the edges grouped by their callees. Edges to method m are
+     * inEdges[inEdgeOffsets[m]] ... inEdges[inEdgeOffsets[m + 1] - 1].
+     */
+    private final int[] inEdges;
+
+    private final int[] inEdgeOffsets;
+
+    /**
+     * Distinct callee ids of each method, in CSR form.
+     */
+    private final int[] succs;
+
+    private final int[] succOffsets;
+
+    /**
+     * Distinct caller ids of each method, in CSR form.
+     */
+    private final int[] preds;
+
+    private final int[] predOffsets;
+
+    private final Set<JMethod> nodes;
+
+    /**
+     * Edge id -> edge, created on demand.
+     */
+    private Edge<Invoke, JMethod>[] edges;
+
+    /**
+     * Edge id -> method edge, created on demand.
+     */
+    private MethodEdge<Invoke, JMethod>[] methodEdges;
+
+    /**
+     * Creates a frozen call graph from numbered elements.
+     *
+     * @param methods            all reachable methods, indexed by id
+     * @param entryIds           ids of the entry methods
+     * @param callSiteContainers container id of each call site, in
+     *                           ascending order
+     * @param callSiteIndexes    statement index of each call site, in
+     *                           ascending order for each container
+     * @param callSites          the call sites which are already resolved
+     *                           (the others are null), or null if none is
+     * @param edgeCallSites      call site id of each edge, in ascending order
+     * @param edgeCallees        callee id of each edge
+     * @param edgeKinds          ordinal of {@link CallKind} of each edge
+     */
+    FrozenCallGraph(JMethod[] methods, int[] entryIds,
+                    int[] callSiteContainers, int[] callSiteIndexes,
+                    Invoke[] callSites,
+                    int[] edgeCallSites, int[] edgeCallees, byte[] edgeKinds) {
+        this.methods = methods;
+        this.entryIds = entryIds;
+        this.callSiteContainers = callSiteContainers;
+        this.callSiteIndexes = callSiteIndexes;
+        this.callSites = callSites != null ? callSites :
+                new Invoke[callSiteContainers.length];
+        this.edgeCallSites = edgeCallSites;
+        this.edgeCallees = edgeCallees;
+        this.edgeKinds = edgeKinds;
+        methodIds = new IdMap<>(methods);
+        callSiteOffsets = toOffsets(callSiteContainers, methods.length);
+        edgeOffsets = toOffsets(edgeCallSites, callSiteContainers.length);
+        // group edges by callees via counting sort
+        inEdgeOffsets = new int[methods.length + 1];
+        for (int callee : edgeCallees) {
+            ++inEdgeOffsets[callee + 1];
+        }
+        for (int m = 0; m < methods.length; ++m) {
+            inEdgeOffsets[m + 1] += inEdgeOffsets[m];
+        }
+        inEdges = new int[edgeCallees.length];
+        int[] next = Arrays.copyOf(inEdgeOffsets, methods.length);
+        for (int e = 0; e < edgeCallees.length; ++e) {
+            inEdges[next[edgeCallees[e]]++] = e;
+        }
+        // compute distinct successors and predecessors of each method
+        int[] lastSeen = new int[methods.length];
+        Arrays.fill(lastSeen, -1);
+        int[] buffer = new int[edgeCallees.length];
+        succOffsets = new int[methods.length + 1];
+        int size = 0;
+        for (int m = 0; m < methods.length; ++m) {
+            int end = edgeOffsets[callSiteOffsets[m + 1]];
+            for (int e = edgeOffsets[callSiteOffsets[m]]; e < end; ++e) {
+                int callee = edgeCallees[e];
+                if (lastSeen[callee] != m) {
+                    lastSeen[callee] = m;
+                    buffer[size++] = callee;
+                }
+            }
+            succOffsets[m + 1] = size;
+        }
+        succs = Arrays.copyOf(buffer, size);
+        Arrays.fill(lastSeen, -1);
+        predOffsets = new int[methods.length + 1];
+        size = 0;
+        for (int m = 0; m < methods.length; ++m) {
+            for (int i = inEdgeOffsets[m]; i < inEdgeOffsets[m + 1]; ++i) {
+                int caller = callSiteContainers[edgeCallSites[inEdges[i]]];
+                if (lastSeen[caller] != m) {
+                    lastSeen[caller] = m;
+                    buffer[size++] = caller;
+                }
+            }
+            predOffsets[m + 1] = size;
+        }
+        preds = Arrays.copyOf(buffer, size);
+        nodes = new IdSet<>(null, 0, methods.length, i -> methods[i],
+                this::methodIdOf);
+    }
+
+    /**
+     * Converts ascending group ids of elements to CSR offsets of the groups.
+     */
+    private static int[] toOffsets(int[] groupIds, int nGroups) {
+        int[] offsets = new int[nGroups + 1];
+        for (int g : groupIds) {
+            ++offsets[g + 1];
+        }
+        for (int g = 0; g < nGroups; ++g) {
+            offsets[g + 1] += offsets[g];
+        }
+        return offsets;
+    }
+
+    /**
+     * Numbers the elements of the given call graph and freezes it.
+     */
+    static FrozenCallGraph freeze(CallGraph<Invoke, JMethod> callGraph) {
+        JMethod[] methods = callGraph.reachableMethods()
+                .toArray(JMethod[]::new);
+        IdMap<JMethod> methodIds = new IdMap<>(methods);
+        int[] entryIds = callGraph.entryMethods()
+                .mapToInt(methodIds::get)
+                .filter(id -> id >= 0)
+                .toArray();
+        Invoke[] callSites = new Invoke[16];
+        int[] callSiteContainers = new int[16];
+        int nCallSites = 0;
+        for (int m = 0; m < methods.length; ++m) {
+            int begin = nCallSites;
+            for (Invoke callSite : callGraph.getCallSitesIn(methods[m])) {
+                if (nCallSites == callSites.length) {
+                    callSites = Arrays.copyOf(callSites, nCallSites * 2);
+                    callSiteContainers = Arrays.copyOf(
+                            callSiteContainers, nCallSites * 2);
+                }
+                callSites[nCallSites] = callSite;
+                callSiteContainers[nCallSites] = m;
+                ++nCallSites;
+            }
+            Arrays.sort(callSites, begin, nCallSites,
+                    Comparator.comparingInt(Invoke::getIndex));
+        }
+        int[] callSiteIndexes = new int[nCallSites];
+        for (int c = 0; c < nCallSites; ++c) {
+            callSiteIndexes[c] = callSites[c].getIndex();
+        }
+        int nEdges = callGraph.getNumberOfEdges();
+        int[] edgeCallSites = new int[nEdges];
+        int[] edgeCallees = new int[nEdges];
+        byte[] edgeKinds = new byte[nEdges];
+        int e = 0;
+        for (int c = 0; c < nCallSites; ++c) {
+            for (Iterator<Edge<Invoke, JMethod>> it =
+                 callGraph.edgesOutOf(callSites[c]).iterator(); it.hasNext(); ) {
+                Edge<Invoke, JMethod> edge = it.next();
+                int callee = methodIds.get(edge.getCallee());
+                if (callee < 0) {
+                    throw new AnalysisException("Callee of call edge " + edge
+                            + " is not a reachable method of the call graph");
+                }
+                edgeCallSites[e] = c;
+                edgeCallees[e] = callee;
+                edgeKinds[e] = (byte) edge.getKind().ordinal();
+                ++e;
+            }
+        }
+        if (e < nEdges) { // ignore edges from call sites of unreachable methods
+            edgeCallSites = Arrays.copyOf(edgeCallSites, e);
+            edgeCallees = Arrays.copyOf(edgeCallees, e);
+            edgeKinds = Arrays.copyOf(edgeKinds, e);
+        }
+        return new FrozenCallGraph(methods, entryIds,
+                Arrays.copyOf(callSiteContainers, nCallSites), callSiteIndexes,
+                Arrays.copyOf(callSites, nCallSites),
+                edgeCallSites, edgeCallees, edgeKinds);
+    }
+
+    int[] getEntryIds() {
+        return entryIds;
+    }
+
+    /**
+     * @return id of the given method, or -1 if the method is not reachable.
+     */
+    public int getMethodId(JMethod method) {
+        return methodIds.get(method);
+    }
+
+    /**
+     * @return the method of the given id.
+     */
+    public JMethod getMethod(int id) {
+        return methods[id];
+    }
+
+    /**
+     * @return id of the given call site, or -1 if the call site is absent.
+     */
+    public int getCallSiteId(Invoke callSite) {
+        int m = getMethodId(callSite.getContainer());
+        if (m < 0) {
+            return -1;
+        }
+        int c = Arrays.binarySearch(callSiteIndexes,
+                callSiteOffsets[m], callSiteOffsets[m + 1], callSite.getIndex());
+        return c >= 0 ? c : -1;
+    }
+
+    /**
+     * @return the call site of the given id.
+     * @throws AnalysisException if the statement index of the call site
+     *                           does not refer to an {@link Invoke} in the
+     *                           IR of its container, e.g., the call graph
+     *                           is loaded from a snapshot of another program.
+     */
+    public Invoke getCallSite(int id) {
+        Invoke callSite = callSites[id];
+        if (callSite == null) {
+            JMethod container = methods[callSiteContainers[id]];
+            IR ir = container.getIR();
+            int index = callSiteIndexes[id];
+            if (index >= ir.getStmts().size() ||
+                    !(ir.getStmt(index) instanceof Invoke invoke)) {
+                throw new AnalysisException("Statement " + index + " of "
+                        + container + " is not a call site");
+            }
+            callSite = invoke;
+            callSites[id] = callSite;
+        }
+        return callSite;
+    }
+
+    /**
+     * @return the number of call sites in this call graph.
+     */
+    public int getNumberOfCallSites() {
+        return callSiteContainers.length;
+    }
+
+    /**
+     * @return id of the method containing the given call site.
+     */
+    public int getCallSiteContainerId(int callSiteId) {
+        return callSiteContainers[callSiteId];
+    }
+
+    /**
+     * @return index of the given call site in the IR of its container.
+     */
+    public int getCallSiteIndex(int callSiteId) {
+        return callSiteIndexes[callSiteId];
+    }
+
+    /**
+     * The call sites in the given method are numbered from
+     * {@code getCallSitesBegin(methodId)} (inclusive) to
+     * {@code getCallSitesEnd(methodId)} (exclusive).
+     */
+    public int getCallSitesBegin(int methodId) {
+        return callSiteOffsets[methodId];
+    }
+
+    /**
+     * @see #getCallSitesBegin(int)
+     */
+    public int getCallSitesEnd(int methodId) {
+        return callSiteOffsets[methodId + 1];
+    }
+
+    /**
+     * The edges out of the given call site are numbered from
+     * {@code getEdgesBegin(callSiteId)} (inclusive) to
+     * {@code getEdgesEnd(callSiteId)} (exclusive). As call sites are
+     * grouped by their containers, the edges out of method m are numbered
+     * from {@code getEdgesBegin(getCallSitesBegin(m))} to
+     * {@code getEdgesEnd(getCallSitesEnd(m) - 1)}.
+     */
+    public int getEdgesBegin(int callSiteId) {
+        return edgeOffsets[callSiteId];
+    }
+
+    /**
+     * @see #getEdgesBegin(int)
+     */
+    public int getEdgesEnd(int callSiteId) {
+        return edgeOffsets[callSiteId + 1];
+    }
+
+    /**
+     * @return id of the call site of the given edge.
+     */
+    public int getEdgeCallSiteId(int edgeId) {
+        return edgeCallSites[edgeId];
+    }
+
+    /**
+     * @return id of the callee of the given edge.
+     */
+    public int getEdgeCalleeId(int edgeId) {
+        return edgeCallees[edgeId];
+    }
+
+    /**
+     * @return call kind of the given edge.
+     */
+    public CallKind getEdgeKind(int edgeId) {
+        return KINDS[edgeKinds[edgeId]];
+    }
+
+    /**
+     * The ids of the edges to the given method are
+     * {@code getInEdgeId(i)} for i from {@code getInEdgesBegin(methodId)}
+     * (inclusive) to {@code getInEdgesEnd(methodId)} (exclusive).
+     */
+    public int getInEdgesBegin(int methodId) {
+        return inEdgeOffsets[methodId];
+    }
+
+    /**
+     * @see #getInEdgesBegin(int)
+     */
+    public int getInEdgesEnd(int methodId) {
+        return inEdgeOffsets[methodId + 1];
+    }
+
+    /**
+     * @see #getInEdgesBegin(int)
+     */
+    public int getInEdgeId(int i) {
+        return inEdges[i];
+    }
+
+    /**
+     * The ids of the distinct callees of the given method are
+     * {@code getSuccId(i)} for i from {@code getSuccsBegin(methodId)}
+     * (inclusive) to {@code getSuccsEnd(methodId)} (exclusive).
+     */
+    public int getSuccsBegin(int methodId) {
+        return succOffsets[methodId];
+    }
+
+    /**
+     * @see #getSuccsBegin(int)
+     */
+    public int getSuccsEnd(int methodId) {
+        return succOffsets[methodId + 1];
+    }
+
+    /**
+     * @see #getSuccsBegin(int)
+     */
+    public int getSuccId(int i) {
+        return succs[i];
+    }
+
+    /**
+     * The ids of the distinct callers of the given method are
+     * {@code getPredId(i)} for i from {@code getPredsBegin(methodId)}
+     * (inclusive) to {@code getPredsEnd(methodId)} (exclusive).
+     */
+    public int getPredsBegin(int methodId) {
+        return predOffsets[methodId];
+    }
+
+    /**
+     * @see #getPredsBegin(int)
+     */
+    public int getPredsEnd(int methodId) {
+        return predOffsets[methodId + 1];
+    }
+
+    /**
+     * @see #getPredsBegin(int)
+     */
+    public int getPredId(int i) {
+        return preds[i];
+    }
+
+    @Override
+    public Set<Invoke> getCallersOf(JMethod callee) {
+        int m = getMethodId(callee);
+        if (m < 0) {
+            return Set.of();
+        }
+        return new IdSet<>(inEdges, inEdgeOffsets[m], inEdgeOffsets[m + 1],
+                e -> getCallSite(edgeCallSites[e]), null);
+    }
+
+    @Override
+    public Set<JMethod> getCalleesOf(Invoke callSite) {
+        int c = getCallSiteId(callSite);
+        if (c < 0) {
+            return Set.of();
+        }
+        return new IdSet<>(edgeCallees, edgeOffsets[c], edgeOffsets[c + 1],
+                i -> methods[i], this::methodIdOf);
+    }
+
+    @Override
+    public Set<JMethod> getCalleesOfM(JMethod caller) {
+        return getSuccsOf(caller);
+    }
+
+    @Override
+    public JMethod getContainerOf(Invoke callSite) {
+        return callSite.getContainer();
+    }
+
+    @Override
+    public Set<Invoke> getCallSitesIn(JMethod method) {
+        int m = getMethodId(method);
+        if (m < 0) {
+            return Set.of();
+        }
+        return new IdSet<>(null, callSiteOffsets[m], callSiteOffsets[m + 1],
+                this::getCallSite, this::callSiteIdOf);
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edgesOutOf(Invoke callSite) {
+        int c = getCallSiteId(callSite);
+        if (c < 0) {
+            return Stream.of();
+        }
+        return IntStream.range(edgeOffsets[c], edgeOffsets[c + 1])
+                .mapToObj(this::getEdge);
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edgesInTo(JMethod method) {
+        int m = getMethodId(method);
+        if (m < 0) {
+            return Stream.of();
+        }
+        return Arrays.stream(inEdges, inEdgeOffsets[m], inEdgeOffsets[m + 1])
+                .mapToObj(this::getEdge);
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edges() {
+        return IntStream.range(0, edgeCallees.length)
+                .mapToObj(this::getEdge);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Edge<Invoke, JMethod> getEdge(int e) {
+        if (edges == null) {
+            edges = (Edge<Invoke, JMethod>[]) new Edge<?, ?>[edgeCallees.length];
+        }
+        Edge<Invoke, JMethod> edge = edges[e];
+        if (edge == null) {
+            edge = new Edge<>(KINDS[edgeKinds[e]],
+                    getCallSite(edgeCallSites[e]), methods[edgeCallees[e]]);
+            edges[e] = edge;
+        }
+        return edge;
+    }
+
+    @SuppressWarnings("unchecked")
+    private MethodEdge<Invoke, JMethod> getMethodEdge(int e) {
+        if (methodEdges == null) {
+            methodEdges = (MethodEdge<Invoke, JMethod>[])
+                    new MethodEdge<?, ?>[edgeCallees.length];
+        }
+        MethodEdge<Invoke, JMethod> edge = methodEdges[e];
+        if (edge == null) {
+            int c = edgeCallSites[e];
+            edge = new MethodEdge<>(methods[callSiteContainers[c]],
+                    methods[edgeCallees[e]], getCallSite(c));
+            methodEdges[e] = edge;
+        }
+        return edge;
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return edgeCallees.length;
+    }
+
+    @Override
+    public Stream<JMethod> entryMethods() {
+        return Arrays.stream(entryIds).mapToObj(i -> methods[i]);
+    }
+
+    @Override
+    public Stream<JMethod> reachableMethods() {
+        return Arrays.stream(methods);
+    }
+
+    @Override
+    public int getNumberOfMethods() {
+        return methods.length;
+    }
+
+    @Override
+    public boolean contains(JMethod method) {
+        return methodIds.get(method) >= 0;
+    }
+
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public Set<JMethod> getResult(Stmt stmt) {
+        return getCalleesOf((Invoke) stmt);
+    }
+
+    private int methodIdOf(Object o) {
+        return o instanceof JMethod method ? getMethodId(method) : -1;
+    }
+
+    private int callSiteIdOf(Object o) {
+        return o instanceof Invoke callSite ? getCallSiteId(callSite) : -1;
+    }
+
+    // Implementation for Graph interface.
+
+    @Override
+    public boolean hasNode(JMethod node) {
+        return contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(JMethod source, JMethod target) {
+        int s = getMethodId(source);
+        int t = getMethodId(target);
+        if (s < 0 || t < 0) {
+            return false;
+        }
+        for (int i = succOffsets[s]; i < succOffsets[s + 1]; ++i) {
+            if (succs[i] == t) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<MethodEdge<Invoke, JMethod>> getInEdgesOf(JMethod method) {
+        int m = getMethodId(method);
+        if (m < 0) {
+            return Set.of();
+        }
+        return new IdSet<>(inEdges, inEdgeOffsets[m], inEdgeOffsets[m + 1],
+                this::getMethodEdge, null);
+    }
+
+    @Override
+    public Set<MethodEdge<Invoke, JMethod>> getOutEdgesOf(JMethod method) {
+        int m = getMethodId(method);
+        if (m < 0) {
+            return Set.of();
+        }
+        // edges of the call sites in a method are contiguous
+        return new IdSet<>(null, edgeOffsets[callSiteOffsets[m]],
+                edgeOffsets[callSiteOffsets[m + 1]], this::getMethodEdge, null);
+    }
+
+    @Override
+    public int getInDegreeOf(JMethod node) {
+        int m = getMethodId(node);
+        return m < 0 ? 0 : inEdgeOffsets[m + 1] - inEdgeOffsets[m];
+    }
+
+    @Override
+    public int getOutDegreeOf(JMethod node) {
+        int m = getMethodId(node);
+        return m < 0 ? 0 :
+                edgeOffsets[callSiteOffsets[m + 1]] - edgeOffsets[callSiteOffsets[m]];
+    }
+
+    @Override
+    public Set<JMethod> getPredsOf(JMethod node) {
+        int m = getMethodId(node);
+        if (m < 0) {
+            return Set.of();
+        }
+        return new IdSet<>(preds, predOffsets[m], predOffsets[m + 1],
+                i -> methods[i], this::methodIdOf);
+    }
+
+    @Override
+    public Set<JMethod> getSuccsOf(JMethod node) {
+        int m = getMethodId(node);
+        if (m < 0) {
+            return Set.of();
+        }
+        return new IdSet<>(succs, succOffsets[m], succOffsets[m + 1],
+                i -> methods[i], this::methodIdOf);
+    }
+
+    @Override
+    public Set<JMethod> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Open-addressing map from elements to their ids (indexes in an array).
+     */
+    private static class IdMap<K> {
+
+        private final Object[] keys;
+
+        private final int[] ids;
+
+        private final int mask;
+
+        private IdMap(K[] elements) {
+            int capacity = Integer.highestOneBit(
+                    Math.max(2, elements.length) * 2 - 1) << 1;
+            keys = new Object[capacity];
+            ids = new int[capacity];
+            mask = capacity - 1;
+            for (int i = 0; i < elements.length; ++i) {
+                int slot = slotOf(elements[i]);
+                keys[slot] = elements[i];
+                ids[slot] = i;
+            }
+        }
+
+        private int slotOf(Object key) {
+            int h = key.hashCode();
+            int slot = (h ^ (h >>> 16)) & mask;
+            while (keys[slot] != null && !keys[slot].equals(key)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * @return id of the given key, or -1 if the key is absent.
+         */
+        private int get(Object key) {
+            int slot = slotOf(key);
+            return keys[slot] != null ? ids[slot] : -1;
+        }
+    }
+
+    /**
+     * Read-only set view over a range of distinct ids.
+     * If {@code ids} is null, the ids are the integers in the range itself.
+     * If {@code idOf} is given, it maps an object to its id (or -1),
+     * and is used to test membership without creating elements.
+     */
+    private static class IdSet<E> extends AbstractSet<E> {
+
+        private final int[] ids;
+
+        private final int from;
+
+        private final int to;
+
+        private final IntFunction<E> mapper;
+
+        private final ToIntFunction<Object> idOf;
+
+        private IdSet(int[] ids, int from, int to,
+                      IntFunction<E> mapper, ToIntFunction<Object> idOf) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+            this.mapper = mapper;
+            this.idOf = idOf;
+        }
+
+        private int idAt(int i) {
+            return ids != null ? ids[i] : i;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o == null) {
+                return false;
+            }
+            if (idOf != null) {
+                int id = idOf.applyAsInt(o);
+                if (id < 0) {
+                    return false;
+                }
+                if (ids == null) {
+                    return from <= id && id < to;
+                }
+                for (int i = from; i < to; ++i) {
+                    if (ids[i] == id) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            for (int i = from; i < to; ++i) {
+                if (mapper.apply(idAt(i)).equals(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+
+                private int i = from;
+
+                @Override
+                public boolean hasNext() {
+                    return i < to;
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return mapper.apply(idAt(i++));
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
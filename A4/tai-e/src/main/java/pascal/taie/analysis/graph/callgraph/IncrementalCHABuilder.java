@@ -0,0 +1,406 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * CHA call graph builder which supports updating the call graph
+ * incrementally after some classes of the program are added, removed
+ * or changed, instead of rebuilding the whole call graph.
+ * <p>
+ * The builder keeps the call graph and the dispatch results across
+ * updates. On an update, it only invalidates the dispatch results of
+ * the changed classes and their subclasses, re-resolves the call sites
+ * whose method references are declared in the supertypes or subtypes
+ * of these classes (the former may dispatch on these classes, and the
+ * dispatch results of the latter may be inherited from these classes),
+ * and then propagates the changes of reachability. The class hierarchy
+ * of {@link World} is expected to reflect the updated program when
+ * {@link #update} is called.
+ * <p>
+ * The builder identifies classes by their names, so an update also works
+ * when the frontend replaces a changed class with a new {@link JClass}
+ * object instead of modifying it in place: the methods of the old object
+ * are removed, and the call sites and entry methods are resolved on the
+ * current objects in the class hierarchy.
+ */
+public class IncrementalCHABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private final Collection<JMethod> entries;
+
+    private ClassHierarchy hierarchy;
+
+    private DefaultCallGraph callGraph;
+
+    private Queue<JMethod> workList;
+
+    /**
+     * Cache of dispatch results, i.e., (class name, subsignature) -> target method.
+     */
+    private TwoKeyMap<String, Subsignature, JMethod> dispatchCache;
+
+    /**
+     * Map from a class name to the call sites whose method references
+     * are declared in the class.
+     */
+    private MultiMap<String, Invoke> callSitesByClass;
+
+    /**
+     * Map from a class name to the methods of the class which are reachable.
+     */
+    private MultiMap<String, JMethod> reachableMethodsByClass;
+
+    /**
+     * Methods which lost some callers during current update, and thus
+     * may become unreachable.
+     */
+    private Set<JMethod> orphans;
+
+    /**
+     * @param entries the entry methods from which the call graph is built.
+     */
+    public IncrementalCHABuilder(Collection<JMethod> entries) {
+        this.entries = entries;
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        callGraph = new DefaultCallGraph();
+        workList = new ArrayDeque<>();
+        dispatchCache = Maps.newTwoKeyMap();
+        callSitesByClass = Maps.newMultiMap();
+        reachableMethodsByClass = Maps.newMultiMap();
+        orphans = Sets.newSet();
+        entries.forEach(callGraph::addEntryMethod);
+        workList.addAll(entries);
+        propagate();
+        return callGraph;
+    }
+
+    /**
+     * Updates the call graph built by {@link #build()} for the given
+     * changes of classes.
+     *
+     * @param added   the classes added to the program
+     * @param removed the classes removed from the program
+     * @param changed the classes whose members are changed
+     * @return the updated call graph.
+     */
+    public CallGraph<Invoke, JMethod> update(Collection<JClass> added,
+                                             Collection<JClass> removed,
+                                             Collection<JClass> changed) {
+        if (callGraph == null) {
+            return build();
+        }
+        hierarchy = World.get().getClassHierarchy();
+        Set<JClass> delta = Sets.newSet();
+        delta.addAll(added);
+        delta.addAll(removed);
+        delta.addAll(changed);
+        Set<Invoke> affected = Sets.newSet();
+        // methods in removed/changed classes are dropped, and the call sites
+        // calling them are re-resolved; for changed classes, this makes
+        // their new methods reachable again
+        for (JClass jclass : removed) {
+            removeMethodsOf(jclass, affected);
+        }
+        for (JClass jclass : changed) {
+            removeMethodsOf(jclass, affected);
+        }
+        // entry methods of changed classes need to be reached again,
+        // on the current objects of the classes
+        Set<String> removedNames = Sets.newSet();
+        removed.forEach(c -> removedNames.add(c.getName()));
+        for (JMethod entry : callGraph.entryMethods().toList()) {
+            if (callGraph.contains(entry) ||
+                    removedNames.contains(entry.getDeclaringClass().getName())) {
+                continue;
+            }
+            JMethod current = currentOf(entry);
+            if (current != entry) {
+                callGraph.removeEntryMethod(entry);
+                if (current == null) {
+                    continue;
+                }
+                callGraph.addEntryMethod(current);
+            }
+            workList.add(current);
+        }
+        for (JClass jclass : delta) {
+            JClass current = currentOf(jclass);
+            invalidateDispatch(current);
+            // call sites declared in supertypes may dispatch on this class
+            for (JClass superType : CallGraphs.superTypesOf(current)) {
+                affected.addAll(callSitesByClass.get(superType.getName()));
+            }
+            // call sites declared in subtypes may dispatch to the methods
+            // inherited from this class
+            for (JClass subType : subTypesOf(current)) {
+                affected.addAll(callSitesByClass.get(subType.getName()));
+            }
+        }
+        for (Invoke callSite : affected) {
+            if (callGraph.contains(callSite.getContainer())) {
+                List<Edge<Invoke, JMethod>> oldEdges =
+                        callGraph.edgesOutOf(callSite).toList();
+                oldEdges.forEach(callGraph::removeEdge);
+                processCallSite(callSite);
+                Set<JMethod> callees = callGraph.getCalleesOf(callSite);
+                oldEdges.stream()
+                        .map(Edge::getCallee)
+                        .filter(callee -> !callees.contains(callee))
+                        .forEach(orphans::add);
+            }
+        }
+        propagate();
+        removeUnreachableMethods();
+        return callGraph;
+    }
+
+    /**
+     * @return the object of the given class in current class hierarchy,
+     * or the given object if the class is not in the hierarchy any more.
+     */
+    private JClass currentOf(JClass jclass) {
+        JClass current = hierarchy.getClass(jclass.getName());
+        return current != null ? current : jclass;
+    }
+
+    /**
+     * @return the method of current class hierarchy which has the same
+     * declaring class and subsignature as the given method, or null if
+     * the method does not exist any more.
+     */
+    private JMethod currentOf(JMethod method) {
+        JClass jclass = method.getDeclaringClass();
+        JClass current = currentOf(jclass);
+        return current == jclass ? method :
+                current.getDeclaredMethod(method.getSubsignature());
+    }
+
+    /**
+     * Processes the methods in work list until it becomes empty.
+     */
+    private void propagate() {
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method)) {
+                reachableMethodsByClass.put(
+                        method.getDeclaringClass().getName(), method);
+                callGraph.getCallSitesIn(method).forEach(callSite -> {
+                    callSitesByClass.put(callSite.getMethodRef()
+                            .getDeclaringClass().getName(), callSite);
+                    processCallSite(callSite);
+                });
+            }
+        }
+    }
+
+    private void processCallSite(Invoke callSite) {
+        CallKind kind = CallGraphs.getCallKind(callSite);
+        for (JMethod callee : resolve(callSite)) {
+            if (callGraph.addEdge(new Edge<>(kind, callSite, callee))) {
+                workList.add(callee);
+            }
+        }
+    }
+
+    /**
+     * Removes the reachable methods of the given class (including the ones
+     * of the old object of the class if it has been replaced) from the call
+     * graph, and collects the call sites calling these methods.
+     */
+    private void removeMethodsOf(JClass jclass, Set<Invoke> callers) {
+        for (JMethod method : List.copyOf(
+                reachableMethodsByClass.get(jclass.getName()))) {
+            callers.addAll(callGraph.getCallersOf(method));
+            removeMethod(method);
+        }
+    }
+
+    /**
+     * Removes the method from the call graph. Its callees lose a caller,
+     * and thus are recorded as orphans.
+     */
+    private void removeMethod(JMethod method) {
+        callGraph.getCallSitesIn(method).forEach(callSite -> {
+            callSitesByClass.remove(callSite.getMethodRef()
+                    .getDeclaringClass().getName(), callSite);
+            orphans.addAll(callGraph.getCalleesOf(callSite));
+        });
+        reachableMethodsByClass.remove(
+                method.getDeclaringClass().getName(), method);
+        callGraph.removeReachableMethod(method);
+    }
+
+    /**
+     * Invalidates the dispatch results on the given class and its subclasses,
+     * as they may be affected by the changes of the given class.
+     */
+    private void invalidateDispatch(JClass jclass) {
+        Queue<JClass> queue = new ArrayDeque<>();
+        Set<JClass> visited = Sets.newSet();
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            if (visited.add(c)) {
+                dispatchCache.removeAll(c.getName());
+                queue.addAll(hierarchy.getDirectSubclassesOf(c));
+            }
+        }
+    }
+
+    /**
+     * @return the subclasses, subinterfaces and implementors of the given
+     * class (transitively), excluding the class itself.
+     */
+    private Set<JClass> subTypesOf(JClass jclass) {
+        Set<JClass> subTypes = Sets.newSet();
+        Queue<JClass> queue = new ArrayDeque<>();
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            if (c != jclass && !subTypes.add(c)) {
+                continue;
+            }
+            if (c.isInterface()) {
+                queue.addAll(hierarchy.getDirectSubinterfacesOf(c));
+                queue.addAll(hierarchy.getDirectImplementorsOf(c));
+            } else {
+                queue.addAll(hierarchy.getDirectSubclassesOf(c));
+            }
+        }
+        return subTypes;
+    }
+
+    /**
+     * Removes the methods which are not reachable from the entry methods
+     * any more, e.g., the methods only called by the removed call edges.
+     * <p>
+     * Only the orphans and the methods reachable from them may have lost
+     * their reachability, so the other methods are not visited. Among
+     * these candidates, the entry methods and the ones called by reachable
+     * methods outside the candidates are reachable, and so are the
+     * candidates called by them.
+     */
+    private void removeUnreachableMethods() {
+        Set<JMethod> candidates = Sets.newSet();
+        Queue<JMethod> queue = new ArrayDeque<>(orphans);
+        while (!queue.isEmpty()) {
+            JMethod method = queue.poll();
+            if (callGraph.contains(method) && candidates.add(method)) {
+                queue.addAll(callGraph.getSuccsOf(method));
+            }
+        }
+        callGraph.entryMethods()
+                .filter(candidates::contains)
+                .forEach(queue::add);
+        for (JMethod method : candidates) {
+            for (JMethod caller : callGraph.getPredsOf(method)) {
+                if (!candidates.contains(caller)) {
+                    queue.add(method);
+                    break;
+                }
+            }
+        }
+        Set<JMethod> reached = Sets.newSet();
+        while (!queue.isEmpty()) {
+            JMethod method = queue.poll();
+            if (reached.add(method)) {
+                callGraph.getSuccsOf(method)
+                        .stream()
+                        .filter(candidates::contains)
+                        .forEach(queue::add);
+            }
+        }
+        candidates.stream()
+                .filter(m -> !reached.contains(m))
+                .toList()
+                .forEach(this::removeMethod);
+        orphans.clear();
+    }
+
+    /**
+     * Resolves call targets (callees) of a call site via CHA.
+     */
+    private Set<JMethod> resolve(Invoke callSite) {
+        Set<JMethod> callees = Sets.newHybridSet();
+        MethodRef methodRef = callSite.getMethodRef();
+        // the class of the method reference may have been replaced
+        JClass declaringClass = currentOf(methodRef.getDeclaringClass());
+        Subsignature subsignature = methodRef.getSubsignature();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC, SPECIAL -> {
+                JMethod callee = dispatch(declaringClass, subsignature);
+                if (callee != null) {
+                    callees.add(callee);
+                }
+            }
+            case VIRTUAL, INTERFACE -> {
+                Queue<JClass> queue = new ArrayDeque<>();
+                Set<JClass> visited = Sets.newSet();
+                queue.add(declaringClass);
+                while (!queue.isEmpty()) {
+                    JClass jclass = queue.poll();
+                    if (!visited.add(jclass)) {
+                        continue;
+                    }
+                    JMethod callee = dispatch(jclass, subsignature);
+                    if (callee != null) {
+                        callees.add(callee);
+                    }
+                    if (jclass.isInterface()) {
+                        queue.addAll(hierarchy.getDirectSubinterfacesOf(jclass));
+                        queue.addAll(hierarchy.getDirectImplementorsOf(jclass));
+                    } else {
+                        queue.addAll(hierarchy.getDirectSubclassesOf(jclass));
+                    }
+                }
+            }
+        }
+        return callees;
+    }
+
+    private JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        return dispatchCache.computeIfAbsent(jclass.getName(), subsignature,
+                (unused, subsig) -> CallGraphs.dispatch(jclass, subsig));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.exp.NewExp;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Implementation of the RTA (Rapid Type Analysis) algorithm.
+ * Compared to CHA, virtual calls are only dispatched on the classes
+ * that are instantiated by {@link New} statements in reachable methods.
+ * When a new class is instantiated, the call sites that have been
+ * resolved before are re-resolved on the new class.
+ */
+class RTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private final Collection<JMethod> entries;
+
+    private ClassHierarchy hierarchy;
+
+    private DefaultCallGraph callGraph;
+
+    private Queue<JMethod> workList;
+
+    /**
+     * Classes that are instantiated in reachable methods.
+     */
+    private Set<JClass> instantiatedClasses;
+
+    /**
+     * Map from a class to the virtual/interface call sites whose
+     * method references are declared in the class. These call sites
+     * need to be re-resolved when a subclass of the class is instantiated.
+     */
+    private MultiMap<JClass, Invoke> pendingCallSites;
+
+    RTABuilder(Collection<JMethod> entries) {
+        this.entries = entries;
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        return buildCallGraph(entries);
+    }
+
+    private CallGraph<Invoke, JMethod> buildCallGraph(Collection<JMethod> entries) {
+        callGraph = new DefaultCallGraph();
+        workList = new ArrayDeque<>();
+        instantiatedClasses = Sets.newSet();
+        pendingCallSites = Maps.newMultiMap();
+        entries.forEach(callGraph::addEntryMethod);
+        workList.addAll(entries);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method) && !method.isAbstract()) {
+                for (Stmt stmt : method.getIR()) {
+                    if (stmt instanceof New newStmt) {
+                        processNew(newStmt.getRValue());
+                    }
+                }
+                callGraph.getCallSitesIn(method).forEach(this::processCallSite);
+            }
+        }
+        return callGraph;
+    }
+
+    /**
+     * Records the class instantiated by the given new expression,
+     * and re-resolves the pending call sites that may dispatch on it.
+     */
+    private void processNew(NewExp newExp) {
+        JClass jclass;
+        if (newExp instanceof NewInstance newInstance) {
+            jclass = newInstance.getType().getJClass();
+        } else {
+            // arrays only respond to the methods declared in Object
+            jclass = hierarchy.getJREClass(ClassNames.OBJECT);
+        }
+        if (jclass != null && instantiatedClasses.add(jclass)) {
+            for (JClass c : CallGraphs.superTypesOf(jclass)) {
+                for (Invoke callSite : pendingCallSites.get(c)) {
+                    addCallEdge(callSite, CallGraphs.dispatch(jclass,
+                            callSite.getMethodRef().getSubsignature()));
+                }
+            }
+        }
+    }
+
+    private void processCallSite(Invoke callSite) {
+        if (callSite.isVirtual() || callSite.isInterface()) {
+            pendingCallSites.put(
+                    callSite.getMethodRef().getDeclaringClass(), callSite);
+        }
+        resolve(callSite).forEach(callee -> addCallEdge(callSite, callee));
+    }
+
+    private void addCallEdge(Invoke callSite, JMethod callee) {
+        if (callee != null && callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(callSite), callSite, callee))) {
+            workList.add(callee);
+        }
+    }
+
+    /**
+     * Resolves call targets (callees) of a call site via RTA, i.e.,
+     * dispatches virtual calls only on the instantiated subclasses
+     * of the declaring class of the method reference.
+     */
+    private Set<JMethod> resolve(Invoke callSite) {
+        Set<JMethod> callees = Sets.newHybridSet();
+        MethodRef methodRef = callSite.getMethodRef();
+        JClass declaringClass = methodRef.getDeclaringClass();
+        Subsignature subsignature = methodRef.getSubsignature();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC, SPECIAL -> {
+                JMethod callee = CallGraphs.dispatch(declaringClass, subsignature);
+                if (callee != null) {
+                    callees.add(callee);
+                }
+            }
+            case VIRTUAL, INTERFACE -> {
+                Queue<JClass> queue = new ArrayDeque<>();
+                Set<JClass> visited = Sets.newSet();
+                queue.add(declaringClass);
+                while (!queue.isEmpty()) {
+                    JClass jclass = queue.poll();
+                    if (!visited.add(jclass)) {
+                        continue;
+                    }
+                    if (instantiatedClasses.contains(jclass)) {
+                        JMethod callee = CallGraphs.dispatch(jclass, subsignature);
+                        if (callee != null) {
+                            callees.add(callee);
+                        }
+                    }
+                    if (jclass.isInterface()) {
+                        queue.addAll(hierarchy.getDirectSubinterfacesOf(jclass));
+                        queue.addAll(hierarchy.getDirectImplementorsOf(jclass));
+                    } else {
+                        queue.addAll(hierarchy.getDirectSubclassesOf(jclass));
+                    }
+                }
+            }
+        }
+        return callees;
+    }
+}
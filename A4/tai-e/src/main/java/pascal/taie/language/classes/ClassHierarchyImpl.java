@@ -119,6 +119,31 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         }
     }
 
+    /**
+     * Removes the given class from the subtype relations of this hierarchy,
+     * which reverts {@link #addClass(JClass)}. The class is still loaded
+     * by its class loader, but it is no longer a subtype of its super
+     * class and interfaces, e.g., when it is removed from the program
+     * under incremental analysis.
+     */
+    public void removeClass(JClass jclass) {
+        Map<JClass, Set<JClass>> subtypes = jclass.isInterface() ?
+                directSubinterfaces : directImplementors;
+        jclass.getInterfaces().forEach(iface -> {
+            Set<JClass> classes = subtypes.get(iface);
+            if (classes != null) {
+                classes.remove(jclass);
+            }
+        });
+        JClass superClass = jclass.getSuperClass();
+        if (!jclass.isInterface() && superClass != null) {
+            Set<JClass> subclasses = directSubclasses.get(superClass);
+            if (subclasses != null) {
+                subclasses.remove(jclass);
+            }
+        }
+    }
+
     @Override
     public Stream<JClass> allClasses() {
         return loaders.values()
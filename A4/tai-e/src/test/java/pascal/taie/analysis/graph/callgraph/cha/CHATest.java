@@ -22,8 +22,17 @@
 
 package pascal.taie.analysis.graph.callgraph.cha;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class CHATest {
     
@@ -50,4 +59,23 @@ public class CHATest {
     public void testAbstractMethod() {
         test("AbstractMethod");
     }
+
+    /**
+     * Builds the call graph of StaticCall from two entry methods,
+     * foo() and B.qux(), instead of main().
+     */
+    @Test
+    public void testMultipleEntries() {
+        Tests.test("StaticCall", "src/test/resources/cha/", "cg",
+                "algorithm:cha;entries:[.*foo.*,.*qux.*]");
+        CallGraph<Invoke, JMethod> callGraph =
+                World.get().getResult(CallGraphBuilder.ID);
+        Assert.assertEquals(Set.of("foo", "qux"), callGraph.entryMethods()
+                .map(JMethod::getName)
+                .collect(Collectors.toSet()));
+        Assert.assertEquals(Set.of("foo", "bar", "qux", "baz"),
+                callGraph.reachableMethods()
+                        .map(JMethod::getName)
+                        .collect(Collectors.toSet()));
+    }
 }
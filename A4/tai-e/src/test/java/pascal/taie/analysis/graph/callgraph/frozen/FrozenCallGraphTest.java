@@ -0,0 +1,133 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph.frozen;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.FrozenCallGraph;
+import pascal.taie.analysis.graph.callgraph.IncrementalCHABuilder;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class FrozenCallGraphTest {
+
+    /**
+     * Builds the CHA call graph of the given test case, freezes it,
+     * and checks that the frozen call graph answers all queries in
+     * the same way as the original one.
+     */
+    protected static void test(String main) {
+        Tests.test(main, "src/test/resources/cha/", "cg",
+                "algorithm:incremental-cha");
+        List<JMethod> entries = List.of(World.get().getMainMethod());
+        DefaultCallGraph callGraph = (DefaultCallGraph)
+                new IncrementalCHABuilder(entries).build();
+        FrozenCallGraph frozen = callGraph.freeze();
+        assertSameGraph(callGraph, frozen);
+        Set<Integer> callSiteIds = new HashSet<>();
+        callGraph.reachableMethods()
+                .flatMap(m -> callGraph.getCallSitesIn(m).stream())
+                .forEach(callSite -> {
+                    // call sites are the statements of the IR of World
+                    Assert.assertSame(callSite, callSite.getContainer()
+                            .getIR().getStmt(callSite.getIndex()));
+                    int id = frozen.getCallSiteId(callSite);
+                    Assert.assertTrue(id >= 0);
+                    Assert.assertTrue("duplicate call-site id " + id,
+                            callSiteIds.add(id));
+                    Assert.assertSame(callSite, frozen.getCallSite(id));
+                    Assert.assertEquals(frozen.getMethodId(callSite.getContainer()),
+                            frozen.getCallSiteContainerId(id));
+                });
+        Assert.assertEquals(callSiteIds.size(), frozen.getNumberOfCallSites());
+    }
+
+    private static void assertSameGraph(CallGraph<Invoke, JMethod> expected,
+                                        CallGraph<Invoke, JMethod> actual) {
+        Assert.assertEquals(toSet(expected.entryMethods()),
+                toSet(actual.entryMethods()));
+        Set<JMethod> methods = toSet(expected.reachableMethods());
+        Assert.assertEquals(methods, toSet(actual.reachableMethods()));
+        Assert.assertEquals(expected.getNumberOfMethods(),
+                actual.getNumberOfMethods());
+        Assert.assertEquals(toSet(expected.edges()), toSet(actual.edges()));
+        Assert.assertEquals(expected.getNumberOfEdges(),
+                actual.getNumberOfEdges());
+        for (JMethod method : methods) {
+            Assert.assertEquals(expected.getSuccsOf(method),
+                    Set.copyOf(actual.getSuccsOf(method)));
+            Assert.assertEquals(expected.getPredsOf(method),
+                    Set.copyOf(actual.getPredsOf(method)));
+            Assert.assertEquals(expected.getCallersOf(method),
+                    Set.copyOf(actual.getCallersOf(method)));
+            Assert.assertEquals(expected.getCalleesOfM(method),
+                    Set.copyOf(actual.getCalleesOfM(method)));
+            Assert.assertEquals(toSet(expected.edgesInTo(method)),
+                    toSet(actual.edgesInTo(method)));
+            Set<Invoke> callSites = expected.getCallSitesIn(method);
+            Assert.assertEquals(callSites,
+                    Set.copyOf(actual.getCallSitesIn(method)));
+            for (Invoke callSite : callSites) {
+                Assert.assertEquals(method, actual.getContainerOf(callSite));
+                Assert.assertEquals(expected.getCalleesOf(callSite),
+                        Set.copyOf(actual.getCalleesOf(callSite)));
+                Assert.assertEquals(toSet(expected.edgesOutOf(callSite)),
+                        toSet(actual.edgesOutOf(callSite)));
+            }
+        }
+    }
+
+    private static <T> Set<T> toSet(Stream<T> stream) {
+        return stream.collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testStaticCall() {
+        test("StaticCall");
+    }
+
+    @Test
+    public void testVirtualCall() {
+        test("VirtualCall");
+    }
+
+    @Test
+    public void testInterface() {
+        test("Interface");
+    }
+
+    @Test
+    public void testAbstractMethod() {
+        test("AbstractMethod");
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph.incremental;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.graph.callgraph.IncrementalCHABuilder;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchyImpl;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class IncrementalCHATest {
+
+    /**
+     * Builds the call graph of the given test case incrementally,
+     * compares it with the expected results of CHA, and then checks
+     * that updating the call graph for the given classes yields
+     * the same call graph as building it from scratch.
+     */
+    protected static void test(String main, String... changed) {
+        Tests.test(main, "src/test/resources/cha/", "cg",
+                "algorithm:incremental-cha");
+        List<JMethod> entries = List.of(World.get().getMainMethod());
+        List<JClass> changedClasses = Arrays.stream(changed)
+                .map(World.get().getClassHierarchy()::getClass)
+                .toList();
+        IncrementalCHABuilder builder = new IncrementalCHABuilder(entries);
+        builder.build();
+        CallGraph<Invoke, JMethod> updated =
+                builder.update(List.of(), List.of(), changedClasses);
+        CallGraph<Invoke, JMethod> rebuilt =
+                new IncrementalCHABuilder(entries).build();
+        Assert.assertEquals(
+                rebuilt.reachableMethods().collect(Collectors.toSet()),
+                updated.reachableMethods().collect(Collectors.toSet()));
+        Assert.assertEquals(edgesOf(rebuilt), edgesOf(updated));
+    }
+
+    /**
+     * Builds the call graph of VirtualCall, where main calls B.foo(),
+     * with or without subclass D of B in the class hierarchy. Then adds
+     * (or removes) D and updates the call graph, and checks that
+     * the call edge to D.foo() appears (or disappears).
+     */
+    private static void testSubclassOfB(boolean add) {
+        Tests.test("VirtualCall", "src/test/resources/cha/", "cg",
+                "algorithm:incremental-cha");
+        ClassHierarchyImpl hierarchy =
+                (ClassHierarchyImpl) World.get().getClassHierarchy();
+        JClass d = hierarchy.getClass("D");
+        JMethod dFoo = d.getDeclaredMethod("foo");
+        JMethod cFoo = hierarchy.getClass("C").getDeclaredMethod("foo");
+        List<JMethod> entries = List.of(World.get().getMainMethod());
+        if (add) {
+            hierarchy.removeClass(d);
+        }
+        try {
+            IncrementalCHABuilder builder = new IncrementalCHABuilder(entries);
+            CallGraph<Invoke, JMethod> callGraph = builder.build();
+            Assert.assertEquals(!add, callGraph.contains(dFoo));
+            Assert.assertTrue(callGraph.contains(cFoo));
+            Invoke callSite = callGraph.getCallersOf(cFoo)
+                    .iterator().next();
+            CallGraph<Invoke, JMethod> updated;
+            if (add) {
+                hierarchy.addClass(d);
+                updated = builder.update(List.of(d), List.of(), List.of());
+            } else {
+                hierarchy.removeClass(d);
+                updated = builder.update(List.of(), List.of(d), List.of());
+            }
+            Assert.assertEquals(add, updated.contains(dFoo));
+            Assert.assertEquals(add,
+                    updated.getCalleesOf(callSite).contains(dFoo));
+            Assert.assertTrue(updated.getCalleesOf(callSite).contains(cFoo));
+            CallGraph<Invoke, JMethod> rebuilt =
+                    new IncrementalCHABuilder(entries).build();
+            Assert.assertEquals(
+                    rebuilt.reachableMethods().collect(Collectors.toSet()),
+                    updated.reachableMethods().collect(Collectors.toSet()));
+            Assert.assertEquals(edgesOf(rebuilt), edgesOf(updated));
+        } finally {
+            if (!add) {
+                hierarchy.addClass(d);
+            }
+        }
+    }
+
+    private static Set<Edge<Invoke, JMethod>> edgesOf(
+            CallGraph<Invoke, JMethod> callGraph) {
+        return callGraph.edges().collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testStaticCall() {
+        test("StaticCall", "A");
+    }
+
+    @Test
+    public void testVirtualCall() {
+        test("VirtualCall", "A", "C");
+    }
+
+    @Test
+    public void testInterface() {
+        test("Interface", "Number", "One");
+    }
+
+    @Test
+    public void testAbstractMethod() {
+        test("AbstractMethod", "A");
+    }
+
+    @Test
+    public void testAddSubclass() {
+        testSubclassOfB(true);
+    }
+
+    @Test
+    public void testRemoveSubclass() {
+        testSubclassOfB(false);
+    }
+}
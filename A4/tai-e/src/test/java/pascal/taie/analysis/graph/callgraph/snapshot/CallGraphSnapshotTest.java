@@ -0,0 +1,119 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph.snapshot;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphSnapshot;
+import pascal.taie.analysis.graph.callgraph.IncrementalCHABuilder;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CallGraphSnapshotTest {
+
+    /**
+     * Builds the CHA call graph of the given test case, saves it to
+     * a snapshot, and checks that the loaded call graph is the same
+     * as the saved one.
+     */
+    protected static void test(String main) throws IOException {
+        CallGraph<Invoke, JMethod> callGraph = build(main);
+        Path file = Files.createTempFile(main, ".cg");
+        try {
+            CallGraphSnapshot.save(callGraph, file.toString());
+            CallGraph<Invoke, JMethod> loaded =
+                    CallGraphSnapshot.load(file.toString());
+            Assert.assertEquals(toSet(callGraph.entryMethods()),
+                    toSet(loaded.entryMethods()));
+            Set<JMethod> methods = toSet(callGraph.reachableMethods());
+            Assert.assertEquals(methods, toSet(loaded.reachableMethods()));
+            Assert.assertEquals(toSet(callGraph.edges()), toSet(loaded.edges()));
+            for (JMethod method : methods) {
+                Assert.assertEquals(callGraph.getCallSitesIn(method),
+                        Set.copyOf(loaded.getCallSitesIn(method)));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static CallGraph<Invoke, JMethod> build(String main) {
+        Tests.test(main, "src/test/resources/cha/", "cg",
+                "algorithm:incremental-cha");
+        return new IncrementalCHABuilder(
+                List.of(World.get().getMainMethod())).build();
+    }
+
+    private static <T> Set<T> toSet(Stream<T> stream) {
+        return stream.collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testStaticCall() throws IOException {
+        test("StaticCall");
+    }
+
+    @Test
+    public void testVirtualCall() throws IOException {
+        test("VirtualCall");
+    }
+
+    @Test
+    public void testInterface() throws IOException {
+        test("Interface");
+    }
+
+    @Test
+    public void testTruncated() throws IOException {
+        CallGraph<Invoke, JMethod> callGraph = build("VirtualCall");
+        Path file = Files.createTempFile("VirtualCall", ".cg");
+        try {
+            CallGraphSnapshot.save(callGraph, file.toString());
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(raf.length() - 5);
+            }
+            try {
+                CallGraphSnapshot.load(file.toString());
+                Assert.fail("expected AnalysisException");
+            } catch (AnalysisException e) {
+                Assert.assertTrue(e.getMessage(),
+                        e.getMessage().contains("Corrupted"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
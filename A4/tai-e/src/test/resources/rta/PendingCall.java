@@ -0,0 +1,34 @@
+public class PendingCall {
+
+    public static void main(String[] args) {
+        A a = new B();
+        a.foo();
+    }
+}
+
+class A {
+    void foo() {
+    }
+}
+
+class B extends A {
+    void foo() {
+        Factory.create();
+    }
+}
+
+class C extends A {
+    void foo() {
+    }
+}
+
+class D extends A {
+    void foo() {
+    }
+}
+
+class Factory {
+    static void create() {
+        new C();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Call graph which can be built by multiple threads.
+ * The modifications are serialized, which is cheap as call graph
+ * changes are rare compared to the work of pointer analysis.
+ * Queries hold the same lock and return copies, thus they can be
+ * issued while the call graph is being built.
+ */
+public class ConcurrentCallGraph extends DefaultCallGraph {
+
+    @Override
+    public synchronized void addEntryMethod(JMethod entryMethod) {
+        super.addEntryMethod(entryMethod);
+    }
+
+    @Override
+    public synchronized boolean addReachableMethod(JMethod method) {
+        return super.addReachableMethod(method);
+    }
+
+    @Override
+    public synchronized boolean addEdge(Edge<Invoke, JMethod> edge) {
+        return super.addEdge(edge);
+    }
+
+    @Override
+    public synchronized List<Edge<Invoke, JMethod>> addEdges(
+            Collection<Edge<Invoke, JMethod>> edges) {
+        return super.addEdges(edges);
+    }
+
+    @Override
+    public synchronized Set<Invoke> getCallersOf(JMethod callee) {
+        return copyOf(super.getCallersOf(callee));
+    }
+
+    @Override
+    public synchronized Set<JMethod> getCalleesOf(Invoke callSite) {
+        return copyOf(super.getCalleesOf(callSite));
+    }
+
+    @Override
+    public synchronized Set<Invoke> getCallSitesIn(JMethod method) {
+        return copyOf(super.getCallSitesIn(method));
+    }
+
+    @Override
+    public synchronized Stream<Edge<Invoke, JMethod>> edgesOutOf(Invoke callSite) {
+        return List.copyOf(callSiteToEdges.get(callSite)).stream();
+    }
+
+    @Override
+    public synchronized Stream<Edge<Invoke, JMethod>> edgesInTo(JMethod method) {
+        return List.copyOf(calleeToEdges.get(method)).stream();
+    }
+
+    @Override
+    public synchronized Stream<Edge<Invoke, JMethod>> edges() {
+        return List.copyOf(callSiteToEdges.values()).stream();
+    }
+
+    @Override
+    public synchronized int getNumberOfEdges() {
+        return super.getNumberOfEdges();
+    }
+
+    @Override
+    public synchronized Stream<JMethod> entryMethods() {
+        return List.copyOf(entryMethods).stream();
+    }
+
+    @Override
+    public synchronized Stream<JMethod> reachableMethods() {
+        return List.copyOf(reachableMethods).stream();
+    }
+
+    @Override
+    public synchronized int getNumberOfMethods() {
+        return super.getNumberOfMethods();
+    }
+
+    @Override
+    public synchronized boolean contains(JMethod method) {
+        return super.contains(method);
+    }
+
+    @Override
+    public synchronized Set<JMethod> getNodes() {
+        return copyOf(reachableMethods);
+    }
+
+    /**
+     * @return an unmodifiable copy of the set which keeps its iteration order.
+     */
+    private static <T> Set<T> copyOf(Set<T> set) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(set));
+    }
+}
@@ -26,6 +26,9 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -77,6 +80,22 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
         }
     }
 
+    /**
+     * Adds a batch of call edges to this call graph.
+     *
+     * @return the edges which are newly added, in the order of given edges.
+     */
+    public List<Edge<Invoke, JMethod>> addEdges(
+            Collection<Edge<Invoke, JMethod>> edges) {
+        List<Edge<Invoke, JMethod>> added = new ArrayList<>(edges.size());
+        for (Edge<Invoke, JMethod> edge : edges) {
+            if (addEdge(edge)) {
+                added.add(edge);
+            }
+        }
+        return added;
+    }
+
     @Override
     public JMethod getContainerOf(Invoke invoke) {
         return invoke.getContainer();
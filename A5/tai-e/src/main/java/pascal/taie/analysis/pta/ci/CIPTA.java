@@ -26,7 +26,9 @@ import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.MergedHeapModel;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
 
 /**
  * Context-insensitive pointer analysis.
@@ -42,10 +44,42 @@ public class CIPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         HeapModel heapModel = new AllocationSiteBasedModel(getOptions());
-        Solver solver = new Solver(heapModel);
+        if ("mahjong".equals(getOptions().getString("heap-model"))) {
+            // runs a pre-analysis with allocation-site abstraction,
+            // then merges type-consistent allocation sites; the objects
+            // of the pre-analysis are discarded afterwards, thus they
+            // are indexed by an indexer of its own
+            Solver preSolver = newSolver(heapModel, new ObjIndexer());
+            preSolver.solve();
+            heapModel = new MergedHeapModel(
+                    new AllocationSiteBasedModel(getOptions()),
+                    MahjongPreAnalysis.computeMergeMap(preSolver.getResult()));
+        }
+        Solver solver = newSolver(heapModel, ObjIndexer.getDefault());
         solver.solve();
-        CIPTAResult result = solver.getResult();
+        Object cacheSize = getOptions().get("field-cache-size");
+        CIPTAResult result = solver.getResult(cacheSize != null ?
+                getOptions().getInt("field-cache-size") :
+                CIPTAResult.DEFAULT_FIELD_CACHE_SIZE);
         new ResultProcessor(getOptions()).process(result);
-        return result;
+        // a frozen result releases the pointer flow graph
+        return getOptions().getBooleanOrDefault("freeze-result", false) ?
+                result.freeze() : result;
+    }
+
+    private Solver newSolver(HeapModel heapModel, ObjIndexer objIndexer) {
+        Object threadsOpt = getOptions().get("threads");
+        int threads = threadsOpt != null ? getOptions().getInt("threads") : 1;
+        boolean varSubstitution =
+                getOptions().getBooleanOrDefault("var-substitution", false);
+        if (varSubstitution && threads > 1) {
+            // variable substitution is computed on demand and is not
+            // thread-safe, thus it is unavailable to the parallel solver
+            throw new ConfigException(
+                    "var-substitution is not supported with threads > 1");
+        }
+        return new Solver(heapModel, varSubstitution, threads,
+                getOptions().getBooleanOrDefault("type-filter", false),
+                objIndexer);
     }
 }
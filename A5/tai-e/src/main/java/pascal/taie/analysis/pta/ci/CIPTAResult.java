@@ -27,16 +27,15 @@ import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.graph.callgraph.CallGraph;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
-import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Pair;
-import pascal.taie.util.collection.Sets;
-import pascal.taie.util.collection.Views;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -50,34 +49,61 @@ class CIPTAResult implements PointerAnalysisResult {
     private final CallGraph<Invoke, JMethod> callGraph;
 
     /**
-     * Points-to sets of field expressions, e.g., v.f.
+     * Default maximum number of cached points-to sets of field expressions.
      */
-    private final Map<Pair<Var, JField>, Set<Obj>> fieldPointsTo = Maps.newMap();
+    static final int DEFAULT_FIELD_CACHE_SIZE = 4096;
+
+    /**
+     * Cache of points-to sets of field expressions, e.g., v.f.
+     * The least recently used entries are evicted when the cache is full.
+     */
+    private final Map<Pair<Var, JField>, Set<Obj>> fieldPointsTo;
 
     private Set<Obj> objects;
 
     CIPTAResult(PointerFlowGraph pointerFlowGraph,
                 CallGraph<Invoke, JMethod> callGraph) {
+        this(pointerFlowGraph, callGraph, DEFAULT_FIELD_CACHE_SIZE);
+    }
+
+    /**
+     * @param fieldCacheSize maximum number of cached points-to sets
+     *                       of field expressions
+     */
+    CIPTAResult(PointerFlowGraph pointerFlowGraph,
+                CallGraph<Invoke, JMethod> callGraph, int fieldCacheSize) {
+        if (fieldCacheSize < 0) {
+            throw new ConfigException(
+                    "field-cache-size must be non-negative: " + fieldCacheSize);
+        }
         this.pointerFlowGraph = pointerFlowGraph;
         this.callGraph = callGraph;
+        this.fieldPointsTo = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Pair<Var, JField>, Set<Obj>> eldest) {
+                return size() > fieldCacheSize;
+            }
+        };
     }
 
     @Override
     public Collection<Var> getVars() {
-        return Views.toMappedCollection(
-                Views.toFilteredCollection(pointerFlowGraph.getPointers(),
-                        VarPtr.class::isInstance),
-                p -> ((VarPtr) p).getVar());
+        return pointerFlowGraph.getPointers()
+                .stream()
+                .filter(VarPtr.class::isInstance)
+                .flatMap(p -> pointerFlowGraph.getVarsOf((VarPtr) p).stream())
+                .collect(Collectors.toUnmodifiableSet());
     }
 
     @Override
     public Collection<Obj> getObjects() {
         if (objects == null) {
-            objects = pointerFlowGraph.getPointers()
-                    .stream()
-                    .map(Pointer::getPointsToSet)
-                    .flatMap(PointsToSet::objects)
-                    .collect(Collectors.toUnmodifiableSet());
+            // union of bit vectors is much more compact than a hash set
+            PointsToSet union = new PointsToSet(pointerFlowGraph.getObjIndexer());
+            pointerFlowGraph.getPointers()
+                    .forEach(p -> union.addAll(p.getPointsToSet()));
+            objects = union.getObjects();
         }
         return objects;
     }
@@ -95,13 +121,13 @@ class CIPTAResult implements PointerAnalysisResult {
             logger.warn("{} is not instance field", field);
         }
         return fieldPointsTo.computeIfAbsent(new Pair<>(base, field), p -> {
-            Set<Obj> pts = Sets.newHybridSet();
+            PointsToSet pts = new PointsToSet(pointerFlowGraph.getObjIndexer());
             getPointsToSet(base).forEach(o -> {
                 InstanceField fieldPtr = pointerFlowGraph
                         .getInstanceField(o, field);
-                pts.addAll(fieldPtr.getPointsToSet().getObjects());
+                pts.addAll(fieldPtr.getPointsToSet());
             });
-            return pts;
+            return pts.getObjects();
         });
     }
 
@@ -123,4 +149,12 @@ class CIPTAResult implements PointerAnalysisResult {
     PointerFlowGraph getPointerFlowGraph() {
         return pointerFlowGraph;
     }
+
+    /**
+     * @return an immutable compact snapshot of this result, which does not
+     * retain the pointer flow graph.
+     */
+    PointerAnalysisResult freeze() {
+        return FrozenCIPTAResult.freeze(this);
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.analysis.pta.core.heap.Obj;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set which can be read and modified by multiple threads.
+ * Every operation holds the lock of this set. Set-wise operations read
+ * the bits of the other set in place, holding the locks of both sets,
+ * which are acquired in the order of their ids to avoid deadlock.
+ */
+class ConcurrentPointsToSet extends PointsToSet {
+
+    private static final AtomicLong counter = new AtomicLong();
+
+    /**
+     * Id which decides the order of acquiring the locks of two sets.
+     */
+    private final long id = counter.getAndIncrement();
+
+    ConcurrentPointsToSet(ObjIndexer indexer) {
+        super(indexer);
+    }
+
+    @Override
+    synchronized boolean addObject(Obj obj) {
+        return super.addObject(obj);
+    }
+
+    @Override
+    PointsToSet addAllDiff(PointsToSet pts) {
+        return locked(pts, () -> super.addAllDiff(pts));
+    }
+
+    @Override
+    boolean addAll(PointsToSet pts) {
+        return locked(pts, () -> super.addAll(pts));
+    }
+
+    @Override
+    boolean hasSameObjects(PointsToSet pts) {
+        return locked(pts, () -> super.hasSameObjects(pts));
+    }
+
+    /**
+     * Runs the action holding the lock of this set and, if pts is
+     * also shared among threads, the lock of pts.
+     */
+    private <R> R locked(PointsToSet pts, Supplier<R> action) {
+        if (!(pts instanceof ConcurrentPointsToSet other) || other == this) {
+            synchronized (this) {
+                return action.get();
+            }
+        }
+        ConcurrentPointsToSet first = id < other.id ? this : other;
+        ConcurrentPointsToSet second = first == this ? other : this;
+        synchronized (first) {
+            synchronized (second) {
+                return action.get();
+            }
+        }
+    }
+
+    @Override
+    synchronized <R> R readBits(Function<SparseBitVector, R> function) {
+        return super.readBits(function);
+    }
+
+    @Override
+    synchronized PointsToSet copy() {
+        return super.copy();
+    }
+
+    @Override
+    synchronized PointsToSet filter(Predicate<Obj> predicate) {
+        return super.filter(predicate);
+    }
+
+    @Override
+    synchronized boolean contains(Obj obj) {
+        return super.contains(obj);
+    }
+
+    @Override
+    synchronized boolean isEmpty() {
+        return super.isEmpty();
+    }
+
+    @Override
+    synchronized int size() {
+        return super.size();
+    }
+
+    /**
+     * Iterates over a copy of this set. This is not used on the
+     * propagation path, which only iterates the difference sets,
+     * and it is mainly for reading the results after solving.
+     */
+    @Override
+    Stream<Obj> objects() {
+        return copy().objects();
+    }
+
+    /**
+     * Iterates over a copy of this set, see {@link #objects()}.
+     */
+    @Override
+    public Iterator<Obj> iterator() {
+        return copy().iterator();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Work list which can be shared by multiple worker threads.
+ * Like {@link WorkList}, it keeps at most one entry for each pointer.
+ */
+class ConcurrentWorkList extends WorkList {
+
+    /**
+     * Map from pointers to their pending points-to sets.
+     */
+    private final ConcurrentMap<Pointer, Pending> entries = Maps.newConcurrentMap();
+
+    /**
+     * Pointers in the order of their entries being created.
+     * Each pointer in the queue has exactly one entry in {@link #entries}.
+     */
+    private final Queue<Pointer> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of entries which have been added but not finished processing.
+     */
+    private final AtomicInteger unfinished = new AtomicInteger();
+
+    private volatile boolean failed = false;
+
+    /**
+     * Monitor on which idle workers wait for new entries.
+     */
+    private final Object monitor = new Object();
+
+    /**
+     * Number of workers waiting on {@link #monitor}.
+     */
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    ConcurrentWorkList(TypeFilter typeFilter) {
+        super(typeFilter);
+    }
+
+    @Override
+    void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        PointsToSet pts = filter(pointer, pointsToSet);
+        if (pts.isEmpty()) {
+            return;
+        }
+        entries.compute(pointer.getRepresentative(), (p, pending) -> {
+            if (pending == null) {
+                unfinished.incrementAndGet();
+                queue.add(p);
+                return new Pending(pts);
+            } else {
+                pending.merge(pts);
+                return pending;
+            }
+        });
+        if (waiters.get() > 0) {
+            wakeUp();
+        }
+    }
+
+    private void wakeUp() {
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+
+    @Override
+    Entry pollEntry() {
+        Pointer pointer = queue.poll();
+        if (pointer == null) {
+            return null;
+        }
+        // the entry may still be being created, in which case
+        // the removal waits for the creation
+        Pending pending = entries.remove(pointer);
+        return new Entry(pointer, pending.getPointsToSet());
+    }
+
+    @Override
+    boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * Processes entries by multiple threads until the work list
+     * is empty and no entry is being processed.
+     * New entries can be added during processing.
+     *
+     * @param threads   number of worker threads
+     * @param processor processes an entry, it may be called concurrently
+     */
+    void drain(int threads, Consumer<Entry> processor) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; ++i) {
+                futures.add(executor.submit(() -> {
+                    work(processor);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Interrupted while solving", e);
+        } catch (ExecutionException e) {
+            throw new AnalysisException("Failed to process work list", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Polls and processes entries until all entries are finished.
+     * A worker that finds the work list empty while other workers are
+     * still processing entries waits until an entry is added or all
+     * entries are finished.
+     */
+    private void work(Consumer<Entry> processor) throws InterruptedException {
+        while (!failed) {
+            Entry entry = pollEntry();
+            if (entry != null) {
+                try {
+                    processor.accept(entry);
+                } catch (RuntimeException | Error e) {
+                    failed = true;
+                    wakeUp();
+                    throw e;
+                } finally {
+                    if (unfinished.decrementAndGet() == 0) {
+                        // entries are only added while processing other
+                        // entries, thus no entry will come
+                        wakeUp();
+                    }
+                }
+            } else if (!awaitEntry()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits until the work list is not empty. The entry that woke up
+     * this worker may have been polled by another worker, thus the
+     * caller should poll again as long as entries are unfinished.
+     *
+     * @return false if all entries are finished or another worker failed.
+     */
+    private boolean awaitEntry() throws InterruptedException {
+        synchronized (monitor) {
+            waiters.incrementAndGet();
+            try {
+                // the state is re-checked after registering as a waiter,
+                // so that a notification sent by addEntry() is not missed
+                while (queue.isEmpty() && unfinished.get() > 0 && !failed) {
+                    monitor.wait();
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+        return unfinished.get() > 0 && !failed;
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.nio.IntBuffer;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable compact snapshot of {@link CIPTAResult}.
+ * <p>
+ * Objects are numbered, and each distinct points-to set is stored as
+ * a sorted slice of object ids in one int array. Instance fields are
+ * indexed by sorted (object id, field id) keys. The snapshot does not
+ * retain the pointer flow graph, thus it is suitable for long-lived
+ * consumers of the result.
+ */
+final class FrozenCIPTAResult implements PointerAnalysisResult {
+
+    private static final Logger logger = LogManager.getLogger(FrozenCIPTAResult.class);
+
+    private final CallGraph<Invoke, JMethod> callGraph;
+
+    private final Obj[] objs;
+
+    private final Map<Obj, Integer> objIds;
+
+    private final List<Var> vars;
+
+    /**
+     * Map from variables to ids of their points-to sets.
+     */
+    private final Map<Var, Integer> varPts;
+
+    /**
+     * Map from static fields to ids of their points-to sets.
+     */
+    private final Map<JField, Integer> staticFieldPts;
+
+    private final Map<JField, Integer> fieldIds;
+
+    /**
+     * Sorted keys of instance fields, (object id << 32 | field id).
+     */
+    private final long[] instanceFieldKeys;
+
+    /**
+     * Ids of points-to sets of instance fields, parallel to instanceFieldKeys.
+     */
+    private final int[] instanceFieldPts;
+
+    /**
+     * Points-to set with id i consists of the object ids in
+     * ptsData[ptsOffsets[i], ptsOffsets[i + 1]).
+     */
+    private final int[] ptsOffsets;
+
+    private final int[] ptsData;
+
+    private FrozenCIPTAResult(CallGraph<Invoke, JMethod> callGraph,
+                              Obj[] objs, Map<Obj, Integer> objIds,
+                              List<Var> vars, Map<Var, Integer> varPts,
+                              Map<JField, Integer> staticFieldPts,
+                              Map<JField, Integer> fieldIds,
+                              long[] instanceFieldKeys, int[] instanceFieldPts,
+                              int[] ptsOffsets, int[] ptsData) {
+        this.callGraph = callGraph;
+        this.objs = objs;
+        this.objIds = objIds;
+        this.vars = vars;
+        this.varPts = varPts;
+        this.staticFieldPts = staticFieldPts;
+        this.fieldIds = fieldIds;
+        this.instanceFieldKeys = instanceFieldKeys;
+        this.instanceFieldPts = instanceFieldPts;
+        this.ptsOffsets = ptsOffsets;
+        this.ptsData = ptsData;
+    }
+
+    /**
+     * Creates a snapshot of the given result.
+     */
+    static FrozenCIPTAResult freeze(CIPTAResult result) {
+        PointerFlowGraph pfg = result.getPointerFlowGraph();
+        // number objects
+        List<Obj> objList = new ArrayList<>(result.getObjects());
+        Map<Obj, Integer> objIds = Maps.newMap(objList.size());
+        for (int i = 0; i < objList.size(); ++i) {
+            objIds.put(objList.get(i), i);
+        }
+        for (Pointer p : pfg.getPointers()) {
+            if (p instanceof InstanceField field) {
+                objIds.computeIfAbsent(field.getBase(), o -> {
+                    objList.add(o);
+                    return objList.size() - 1;
+                });
+            }
+        }
+        // collect distinct points-to sets
+        PtsBuilder ptsBuilder = new PtsBuilder(objIds);
+        List<Var> vars = List.copyOf(result.getVars());
+        Map<Var, Integer> varPts = Maps.newMap(vars.size());
+        for (Var var : vars) {
+            varPts.put(var, ptsBuilder.add(pfg.getVarPtr(var).getPointsToSet()));
+        }
+        Map<JField, Integer> staticFieldPts = Maps.newMap();
+        Map<JField, Integer> fieldIds = Maps.newMap();
+        List<long[]> instanceFields = new ArrayList<>();
+        for (Pointer p : pfg.getPointers()) {
+            if (p instanceof StaticField field) {
+                staticFieldPts.put(field.getField(),
+                        ptsBuilder.add(field.getPointsToSet()));
+            } else if (p instanceof InstanceField field) {
+                int fieldId = fieldIds.computeIfAbsent(
+                        field.getField(), f -> fieldIds.size());
+                long key = ((long) objIds.get(field.getBase()) << 32) | fieldId;
+                instanceFields.add(new long[]{
+                        key, ptsBuilder.add(field.getPointsToSet())});
+            }
+        }
+        instanceFields.sort((x, y) -> Long.compare(x[0], y[0]));
+        long[] instanceFieldKeys = new long[instanceFields.size()];
+        int[] instanceFieldPts = new int[instanceFields.size()];
+        for (int i = 0; i < instanceFields.size(); ++i) {
+            instanceFieldKeys[i] = instanceFields.get(i)[0];
+            instanceFieldPts[i] = (int) instanceFields.get(i)[1];
+        }
+        return new FrozenCIPTAResult(result.getCallGraph(),
+                objList.toArray(new Obj[0]), objIds, vars, varPts,
+                staticFieldPts, fieldIds, instanceFieldKeys, instanceFieldPts,
+                ptsBuilder.getOffsets(), ptsBuilder.getData());
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return vars;
+    }
+
+    @Override
+    public Collection<Obj> getObjects() {
+        return Collections.unmodifiableList(Arrays.asList(objs));
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        Integer pts = varPts.get(var);
+        return pts != null ?
+                new ObjSet(ptsData, ptsOffsets[pts], ptsOffsets[pts + 1]) :
+                Set.of();
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        if (field.isStatic()) {
+            logger.warn("{} is not instance field", field);
+        }
+        Integer basePts = varPts.get(base);
+        Integer fieldId = fieldIds.get(field);
+        if (basePts == null || fieldId == null) {
+            return Set.of();
+        }
+        BitSet union = new BitSet(objs.length);
+        for (int i = ptsOffsets[basePts]; i < ptsOffsets[basePts + 1]; ++i) {
+            long key = ((long) ptsData[i] << 32) | fieldId;
+            int index = Arrays.binarySearch(instanceFieldKeys, key);
+            if (index >= 0) {
+                int pts = instanceFieldPts[index];
+                for (int j = ptsOffsets[pts]; j < ptsOffsets[pts + 1]; ++j) {
+                    union.set(ptsData[j]);
+                }
+            }
+        }
+        int[] data = union.stream().toArray();
+        return new ObjSet(data, 0, data.length);
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        if (!field.isStatic()) {
+            logger.warn("{} is not static field", field);
+        }
+        Integer pts = staticFieldPts.get(field);
+        return pts != null ?
+                new ObjSet(ptsData, ptsOffsets[pts], ptsOffsets[pts + 1]) :
+                Set.of();
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> getCallGraph() {
+        return callGraph;
+    }
+
+    /**
+     * Immutable set view of a sorted slice of object ids.
+     */
+    private class ObjSet extends AbstractSet<Obj> {
+
+        private final int[] data;
+
+        private final int from;
+
+        private final int to;
+
+        private ObjSet(int[] data, int from, int to) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer id = objIds.get(o);
+            return id != null && Arrays.binarySearch(data, from, to, id) >= 0;
+        }
+
+        @Override
+        public Iterator<Obj> iterator() {
+            return new Iterator<>() {
+
+                private int i = from;
+
+                @Override
+                public boolean hasNext() {
+                    return i < to;
+                }
+
+                @Override
+                public Obj next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return objs[data[i++]];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * Builds the arrays of distinct points-to sets. Points-to sets with
+     * the same objects are stored once, whether they are shared by several
+     * pointers (e.g., merged by cycle elimination) or equal by content.
+     */
+    private static class PtsBuilder {
+
+        private final Map<Obj, Integer> objIds;
+
+        /**
+         * Ids of the points-to sets which have been added, which avoids
+         * converting a shared points-to set more than once.
+         */
+        private final Map<PointsToSet, Integer> ptsIds = new IdentityHashMap<>();
+
+        /**
+         * Ids of the distinct points-to sets, keyed by their sorted object ids.
+         * {@link IntBuffer} compares and hashes the ids by content.
+         */
+        private final Map<IntBuffer, Integer> contentIds = Maps.newMap();
+
+        private int[] offsets = new int[]{0};
+
+        private int[] data = new int[16];
+
+        private PtsBuilder(Map<Obj, Integer> objIds) {
+            this.objIds = objIds;
+        }
+
+        private int add(PointsToSet pts) {
+            return ptsIds.computeIfAbsent(pts, s -> {
+                int[] ids = s.objects().mapToInt(objIds::get).sorted().toArray();
+                return contentIds.computeIfAbsent(IntBuffer.wrap(ids),
+                        k -> append(ids));
+            });
+        }
+
+        private int append(int[] ids) {
+            int id = contentIds.size();
+            if (id + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2 + 2);
+            }
+            int start = offsets[id];
+            if (start + ids.length > data.length) {
+                data = Arrays.copyOf(data,
+                        Math.max(data.length * 2, start + ids.length));
+            }
+            System.arraycopy(ids, 0, data, start, ids.length);
+            offsets[id + 1] = start + ids.length;
+            return id;
+        }
+
+        private int[] getOffsets() {
+            return Arrays.copyOf(offsets, contentIds.size() + 1);
+        }
+
+        private int[] getData() {
+            return Arrays.copyOf(data, offsets[contentIds.size()]);
+        }
+    }
+}
@@ -24,6 +24,7 @@ package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.language.classes.JField;
+import pascal.taie.language.type.Type;
 import pascal.taie.util.Hashes;
 
 /**
@@ -54,6 +55,11 @@ class InstanceField extends Pointer {
         return field;
     }
 
+    @Override
+    Type getType() {
+        return field.getType();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,124 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pre-analysis for merging type-consistent allocation sites,
+ * following Mahjong (PLDI'17).
+ * <p>
+ * Given the result of a CI pointer analysis, it builds the field points-to
+ * graph (FPG) of the objects, and computes the coarsest partition of the
+ * objects such that objects in the same part have the same type, and for
+ * each field, their field points-to sets hit the same set of parts.
+ * Such objects are indistinguishable to type-dependent clients (e.g.,
+ * call graph construction), thus the allocation sites of each part can
+ * be merged into one abstract object.
+ */
+class MahjongPreAnalysis {
+
+    private static final Logger logger = LogManager.getLogger(MahjongPreAnalysis.class);
+
+    /**
+     * Key of the field that represents array elements in FPG.
+     */
+    private static final String ARRAY_INDEX = "[*]";
+
+    /**
+     * @return the map from mergeable allocation sites to
+     * their representative sites.
+     */
+    static Map<New, New> computeMergeMap(CIPTAResult result) {
+        List<Obj> objs = new ArrayList<>(result.getObjects());
+        // build FPG, fields are ordered by their names for determinism
+        Map<Obj, Map<String, PointsToSet>> fpg = Maps.newMap();
+        for (Pointer p : result.getPointerFlowGraph().getPointers()) {
+            if (p instanceof InstanceField field) {
+                fpg.computeIfAbsent(field.getBase(), o -> new TreeMap<>())
+                        .put(field.getField().getSignature(), field.getPointsToSet());
+            } else if (p instanceof ArrayIndex array) {
+                fpg.computeIfAbsent(array.getArray(), o -> new TreeMap<>())
+                        .put(ARRAY_INDEX, array.getPointsToSet());
+            }
+        }
+        // initial partition by types; objects that are not created
+        // by allocation sites are never merged
+        Map<Obj, Integer> parts = Maps.newMap(objs.size());
+        Map<Object, Integer> initial = Maps.newMap();
+        for (Obj obj : objs) {
+            Object key = obj.getAllocation() instanceof New ? obj.getType() : obj;
+            parts.put(obj, initial.computeIfAbsent(key, k -> initial.size()));
+        }
+        int nParts = initial.size();
+        // refine the partition until it is stable
+        while (true) {
+            Map<List<Object>, Integer> signatures = Maps.newMap();
+            Map<Obj, Integer> oldParts = parts;
+            Map<Obj, Integer> newParts = Maps.newMap(objs.size());
+            for (Obj obj : objs) {
+                List<Object> signature = new ArrayList<>();
+                signature.add(oldParts.get(obj));
+                fpg.getOrDefault(obj, Map.of()).forEach((field, pts) -> {
+                    signature.add(field);
+                    signature.add(pts.objects()
+                            .map(oldParts::get)
+                            .distinct()
+                            .sorted()
+                            .toList());
+                });
+                newParts.put(obj, signatures.computeIfAbsent(
+                        signature, s -> signatures.size()));
+            }
+            parts = newParts;
+            if (signatures.size() == nParts) {
+                break;
+            }
+            nParts = signatures.size();
+        }
+        // choose the first object of each part as representative
+        Map<Integer, New> representatives = Maps.newMap();
+        Map<New, New> mergeMap = Maps.newMap();
+        for (Obj obj : objs) {
+            if (obj.getAllocation() instanceof New site) {
+                New rep = representatives.computeIfAbsent(parts.get(obj), p -> site);
+                if (rep != site) {
+                    mergeMap.put(site, rep);
+                }
+            }
+        }
+        logger.info("Mahjong merges {} objects into {} objects",
+                objs.size(), objs.size() - mergeMap.size());
+        return Collections.unmodifiableMap(mergeMap);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.World;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Assigns dense integer indexes to abstract objects, so that points-to
+ * sets can be represented as bit vectors over the indexes.
+ * Indexes are given in the order the objects are first seen,
+ * which is close to the order the heap model creates them.
+ * <p>
+ * This class is thread-safe: looking up existing indexes does not lock,
+ * and only assigning new indexes is synchronized.
+ * <p>
+ * The default indexer ({@link #getDefault()}) is shared by the solver
+ * and the points-to sets created without an explicit indexer, and it is
+ * discarded when {@link World} is reset.
+ */
+class ObjIndexer {
+
+    private static ObjIndexer defaultIndexer;
+
+    static {
+        World.registerResetCallback(ObjIndexer::resetDefault);
+    }
+
+    private final Map<Obj, Integer> indexes = Maps.newConcurrentMap();
+
+    /**
+     * Objects ordered by their indexes. A new array is published
+     * (via the volatile write) when the array grows, and elements are
+     * written before their indexes are published in {@link #indexes}.
+     */
+    private volatile Obj[] objs = new Obj[64];
+
+    private int size = 0;
+
+    /**
+     * @return the default indexer of current {@link World}.
+     */
+    static synchronized ObjIndexer getDefault() {
+        if (defaultIndexer == null) {
+            defaultIndexer = new ObjIndexer();
+        }
+        return defaultIndexer;
+    }
+
+    private static synchronized void resetDefault() {
+        defaultIndexer = null;
+    }
+
+    /**
+     * @return the index of given object. If the object has not been
+     * indexed yet, assigns a new index to it.
+     */
+    int getIndex(Obj obj) {
+        Integer index = indexes.get(obj);
+        return index != null ? index : assignIndex(obj);
+    }
+
+    private synchronized int assignIndex(Obj obj) {
+        Integer index = indexes.get(obj);
+        if (index == null) {
+            index = size;
+            if (size == objs.length) {
+                objs = Arrays.copyOf(objs, size * 2);
+            }
+            objs[size++] = obj;
+            indexes.put(obj, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of given object, or -1 if it has not been indexed.
+     */
+    int indexOf(Obj obj) {
+        Integer index = indexes.get(obj);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return the object with given index.
+     */
+    Obj getObj(int index) {
+        return objs[index];
+    }
+
+    /**
+     * @return the number of indexed objects.
+     */
+    int size() {
+        return indexes.size();
+    }
+}
@@ -22,6 +22,8 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.language.type.Type;
+
 /**
  * Represents pointers in pointer analysis and nodes in pointer flow graph.
  *
@@ -29,9 +31,57 @@ package pascal.taie.analysis.pta.ci;
  */
 abstract class Pointer {
 
-    private final PointsToSet pointsToSet = new PointsToSet();
+    private PointsToSet pointsToSet;
+
+    /**
+     * The pointer which represents this pointer after this pointer
+     * is merged into a cycle of PFG.
+     */
+    private Pointer representative = this;
 
+    /**
+     * @return the points-to set of this pointer. If this pointer
+     * has been merged into a cycle, returns the points-to set
+     * shared by all pointers in the cycle.
+     */
     PointsToSet getPointsToSet() {
-        return pointsToSet;
+        return getRepresentative().pointsToSet;
+    }
+
+    /**
+     * @return the declared type of this pointer, which is used
+     * to filter the objects that can flow into this pointer.
+     */
+    abstract Type getType();
+
+    /**
+     * Sets the points-to set of this pointer. This is called by
+     * {@link PointerFlowGraph} when the pointer is created.
+     */
+    void setPointsToSet(PointsToSet pointsToSet) {
+        this.pointsToSet = pointsToSet;
+    }
+
+    /**
+     * @return the representative of this pointer, which is this pointer
+     * itself if it has not been merged.
+     */
+    Pointer getRepresentative() {
+        Pointer rep = this;
+        while (rep.representative != rep) {
+            rep = rep.representative;
+        }
+        // path compression
+        Pointer p = this;
+        while (p != rep) {
+            Pointer next = p.representative;
+            p.representative = rep;
+            p = next;
+        }
+        return rep;
+    }
+
+    void setRepresentative(Pointer representative) {
+        this.representative = representative;
     }
 }
@@ -25,49 +25,126 @@ package pascal.taie.analysis.pta.ci;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.language.classes.JField;
+import pascal.taie.util.collection.MapSetMultiMap;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
 import pascal.taie.util.collection.Sets;
-import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Represents pointer flow graph in pointer analysis.
+ * <p>
+ * Cycles of the PFG can be collapsed online (see {@link #collapseCycle}):
+ * all pointers in a cycle are merged into a representative pointer,
+ * which holds the only points-to set and the outgoing edges of the cycle.
+ * <p>
+ * A concurrent PFG can be modified by multiple threads, e.g.,
+ * by the parallel solver. Cycle collapsing is disabled in this mode.
  */
 class PointerFlowGraph {
 
+    /**
+     * Indexer of the objects in points-to sets of this PFG.
+     */
+    private final ObjIndexer objIndexer;
+
+    /**
+     * Offline variable substitution, or null if it is disabled.
+     */
+    private final VarSubstitution varSubstitution;
+
+    /**
+     * Whether propagation on the edges of this PFG is filtered by types.
+     */
+    private final boolean typeFiltered;
+
+    /**
+     * Whether this PFG can be modified concurrently.
+     */
+    private final boolean concurrent;
+
     /**
      * Set of all pointer in this PFG.
      */
-    private final Set<Pointer> pointers = Sets.newSet();
+    private final Set<Pointer> pointers;
 
     /**
      * Map from Variable to Var node.
      */
-    private final Map<Var, VarPtr> varPtrs = Maps.newMap();
+    private final Map<Var, VarPtr> varPtrs;
 
     /**
      * Map from JField to StaticField node.
      */
-    private final Map<JField, StaticField> staticFields = Maps.newMap();
+    private final Map<JField, StaticField> staticFields;
 
     /**
      * Map from (Obj, Field) to InstanceField node.
      */
-    private final TwoKeyMap<Obj, JField, InstanceField> instanceFields = Maps.newTwoKeyMap();
+    private final Map<Obj, Map<JField, InstanceField>> instanceFields;
 
     /**
      * Map from Obj (array) to ArrayIndex node.
      */
-    private final Map<Obj, ArrayIndex> arrayIndexes = Maps.newMap();
+    private final Map<Obj, ArrayIndex> arrayIndexes;
 
     /**
      * Map from a pointer (node) to its successors in PFG.
      */
-    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
+    private final MultiMap<Pointer, Pointer> successors;
+
+    /**
+     * Map from a representative pointer to the other pointers merged into it.
+     */
+    private final MultiMap<Pointer, Pointer> members = Maps.newMultiMap();
+
+    /**
+     * Edges which have been checked by cycle detection.
+     */
+    private final MultiMap<Pointer, Pointer> checkedEdges = Maps.newMultiMap();
+
+    PointerFlowGraph(ObjIndexer objIndexer) {
+        this(objIndexer, null);
+    }
+
+    PointerFlowGraph(ObjIndexer objIndexer, VarSubstitution varSubstitution) {
+        this(objIndexer, varSubstitution, false, false);
+    }
+
+    PointerFlowGraph(ObjIndexer objIndexer, VarSubstitution varSubstitution,
+                     boolean typeFiltered, boolean concurrent) {
+        this.objIndexer = objIndexer;
+        this.varSubstitution = varSubstitution;
+        this.typeFiltered = typeFiltered;
+        this.concurrent = concurrent;
+        if (concurrent) {
+            pointers = Sets.newConcurrentSet();
+            varPtrs = Maps.newConcurrentMap();
+            staticFields = Maps.newConcurrentMap();
+            instanceFields = Maps.newConcurrentMap();
+            arrayIndexes = Maps.newConcurrentMap();
+            // successor sets are concurrent sets, and they are created
+            // atomically by the concurrent map
+            successors = new MapSetMultiMap<>(
+                    Maps.newConcurrentMap(), Sets::newConcurrentSet);
+        } else {
+            pointers = Sets.newSet();
+            varPtrs = Maps.newMap();
+            staticFields = Maps.newMap();
+            instanceFields = Maps.newMap();
+            arrayIndexes = Maps.newMap();
+            successors = Maps.newMultiMap();
+        }
+    }
 
     /**
      * Returns all pointers in this PFG.
@@ -78,23 +155,34 @@ class PointerFlowGraph {
 
     /**
      * @return the corresponding Var node for the given variable.
+     * If variable substitution is enabled, pointer-equivalent variables
+     * share the Var node of their representative.
      */
     VarPtr getVarPtr(Var var) {
-        return varPtrs.computeIfAbsent(var, v -> {
+        Var rep = varSubstitution != null ?
+                varSubstitution.getRepresentative(var) : var;
+        return varPtrs.computeIfAbsent(rep, v -> {
             VarPtr varPtr = new VarPtr(v);
-            pointers.add(varPtr);
-            return varPtr;
+            return addPointer(varPtr);
         });
     }
 
+    /**
+     * @return the variables which share the given Var node.
+     */
+    Set<Var> getVarsOf(VarPtr varPtr) {
+        return varSubstitution != null ?
+                varSubstitution.getVarsOf(varPtr.getVar()) :
+                Set.of(varPtr.getVar());
+    }
+
     /**
      * @return the corresponding StaticField node for the given static field.
      */
     StaticField getStaticField(JField field) {
         return staticFields.computeIfAbsent(field, f -> {
             StaticField staticField = new StaticField(f);
-            pointers.add(staticField);
-            return staticField;
+            return addPointer(staticField);
         });
     }
 
@@ -103,11 +191,13 @@ class PointerFlowGraph {
      * and instance field.
      */
     InstanceField getInstanceField(Obj base, JField field) {
-        return instanceFields.computeIfAbsent(base, field, (b, f) -> {
-                InstanceField instanceField = new InstanceField(b, f);
-                pointers.add(instanceField);
-                return instanceField;
-            });
+        return instanceFields
+                .computeIfAbsent(base, b -> concurrent ?
+                        Maps.newConcurrentMap() : Maps.newHybridMap())
+                .computeIfAbsent(field, f -> {
+                    InstanceField instanceField = new InstanceField(base, f);
+                    return addPointer(instanceField);
+                });
     }
 
     /**
@@ -116,11 +206,25 @@ class PointerFlowGraph {
     ArrayIndex getArrayIndex(Obj array) {
         return arrayIndexes.computeIfAbsent(array, a -> {
             ArrayIndex arrayIndex = new ArrayIndex(a);
-            pointers.add(arrayIndex);
-            return arrayIndex;
+            return addPointer(arrayIndex);
         });
     }
 
+    /**
+     * @return the object indexer of this PFG.
+     */
+    ObjIndexer getObjIndexer() {
+        return objIndexer;
+    }
+
+    private <P extends Pointer> P addPointer(P pointer) {
+        pointer.setPointsToSet(concurrent ?
+                new ConcurrentPointsToSet(objIndexer) :
+                new PointsToSet(objIndexer));
+        pointers.add(pointer);
+        return pointer;
+    }
+
     /**
      * Adds an edge (source -> target) to this PFG.
      *
@@ -128,13 +232,174 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        Pointer s = source.getRepresentative();
+        Pointer t = target.getRepresentative();
+        return s != t && successors.put(s, t);
     }
 
     /**
-     * @return successors of given pointer in the PFG.
+     * @return successors of given pointer in the PFG. If the pointer
+     * has been merged into a cycle, returns the successors of the cycle.
+     * The successors may include pointers that have been merged after
+     * the edges were added, callers should use their representatives.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+        return successors.get(pointer.getRepresentative());
+    }
+
+    /**
+     * @return the pointers that are represented by the given pointer,
+     * including the representative itself.
+     */
+    Set<Pointer> getMembersOf(Pointer pointer) {
+        Pointer rep = pointer.getRepresentative();
+        Set<Pointer> result = Sets.newHybridSet(members.get(rep));
+        result.add(rep);
+        return result;
+    }
+
+    /**
+     * Result of collapsing a cycle.
+     *
+     * @param succEntries  for each successor of the collapsed cycle,
+     *                     the objects of the cycle it does not point to yet
+     * @param memberDeltas for each pointer of the collapsed cycle,
+     *                     the objects it did not point to before merging,
+     *                     on which its related statements are yet to be processed
+     */
+    record Collapse(List<WorkList.Entry> succEntries,
+                    List<WorkList.Entry> memberDeltas) {
+    }
+
+    /**
+     * Lazy cycle detection: this method is supposed to be called after
+     * propagating along edge source -> target leaves the two pointers
+     * with the same points-to set, which is a hint that the edge is
+     * in a cycle. Each edge is checked at most once.
+     * If a cycle is found, collapses all pointers in the strongly connected
+     * component of the edge into one representative pointer, whose
+     * points-to set becomes the union of the points-to sets of the merged
+     * pointers. Only the objects that the successors and the merged pointers
+     * miss are returned to the solver, so that the objects which have been
+     * propagated before are not propagated again.
+     * If propagation is filtered by types, only the cycles whose pointers
+     * have the same declared type are collapsed, as other cycles may keep
+     * different points-to sets for their pointers.
+     *
+     * @return the objects to be propagated and processed, or null if no cycle
+     * is found or this PFG is concurrent.
+     */
+    Collapse collapseCycle(Pointer source, Pointer target) {
+        if (concurrent) {
+            return null;
+        }
+        Pointer s = source.getRepresentative();
+        Pointer t = target.getRepresentative();
+        if (s == t || !checkedEdges.put(s, t)) {
+            return null;
+        }
+        Set<Pointer> scc = getSCCOf(t);
+        if (!scc.contains(s) || (typeFiltered && scc.stream()
+                .anyMatch(p -> !p.getType().equals(s.getType())))) {
+            return null;
+        }
+        PointsToSet union = s.getPointsToSet();
+        // points-to sets of the pointers before merging
+        Map<Pointer, PointsToSet> oldSets = Maps.newHybridMap();
+        oldSets.put(s, union.copy());
+        Set<Pointer> succs = Sets.newHybridSet();
+        for (Pointer p : scc) {
+            if (p != s) {
+                oldSets.put(p, p.getPointsToSet());
+                union.addAll(p.getPointsToSet());
+            }
+            for (Pointer succ : successors.get(p)) {
+                Pointer succRep = succ.getRepresentative();
+                if (!scc.contains(succRep)) {
+                    succs.add(succRep);
+                }
+            }
+        }
+        for (Pointer p : scc) {
+            if (p != s) {
+                p.setRepresentative(s);
+                p.setPointsToSet(null);
+                successors.removeAll(p);
+                members.put(s, p);
+                members.putAll(s, members.get(p));
+                members.removeAll(p);
+            }
+        }
+        successors.removeAll(s);
+        successors.putAll(s, succs);
+        List<WorkList.Entry> succEntries = new ArrayList<>();
+        for (Pointer succ : succs) {
+            PointsToSet succPts = succ.getPointsToSet();
+            PointsToSet diff = union.filter(o -> !succPts.contains(o));
+            if (!diff.isEmpty()) {
+                succEntries.add(new WorkList.Entry(succ, diff));
+            }
+        }
+        List<WorkList.Entry> memberDeltas = new ArrayList<>();
+        oldSets.forEach((p, oldPts) -> {
+            PointsToSet delta = union.filter(o -> !oldPts.contains(o));
+            if (!delta.isEmpty()) {
+                memberDeltas.add(new WorkList.Entry(p, delta));
+            }
+        });
+        return new Collapse(succEntries, memberDeltas);
+    }
+
+    /**
+     * @return the strongly connected component which contains root,
+     * computed by Tarjan's algorithm over representative pointers.
+     */
+    Set<Pointer> getSCCOf(Pointer root) {
+        Map<Pointer, Integer> indexes = Maps.newMap();
+        Map<Pointer, Integer> lows = Maps.newMap();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Set<Pointer> onStack = Sets.newSet();
+        Deque<Pair<Pointer, Iterator<Pointer>>> frames = new ArrayDeque<>();
+        indexes.put(root, 0);
+        lows.put(root, 0);
+        stack.push(root);
+        onStack.add(root);
+        frames.push(new Pair<>(root, successors.get(root).iterator()));
+        while (!frames.isEmpty()) {
+            Pointer node = frames.peek().first();
+            Iterator<Pointer> iter = frames.peek().second();
+            if (iter.hasNext()) {
+                Pointer succ = iter.next().getRepresentative();
+                if (!indexes.containsKey(succ)) {
+                    int index = indexes.size();
+                    indexes.put(succ, index);
+                    lows.put(succ, index);
+                    stack.push(succ);
+                    onStack.add(succ);
+                    frames.push(new Pair<>(succ, successors.get(succ).iterator()));
+                } else if (onStack.contains(succ)) {
+                    lows.put(node, Math.min(lows.get(node), indexes.get(succ)));
+                }
+            } else {
+                frames.pop();
+                if (lows.get(node).equals(indexes.get(node))) {
+                    Set<Pointer> scc = Sets.newHybridSet();
+                    Pointer p;
+                    do {
+                        p = stack.pop();
+                        onStack.remove(p);
+                        scc.add(p);
+                    } while (p != node);
+                    if (node == root) {
+                        return scc;
+                    }
+                }
+                if (!frames.isEmpty()) {
+                    Pointer parent = frames.peek().first();
+                    lows.put(parent, Math.min(lows.get(parent), lows.get(node)));
+                }
+            }
+        }
+        return Set.of(root);
     }
 }
@@ -23,33 +23,65 @@
 package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.pta.core.heap.Obj;
-import pascal.taie.util.collection.Sets;
 
-import java.util.Collections;
+import java.util.AbstractSet;
 import java.util.Iterator;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents of points-to sets.
+ * The objects are stored as a bit vector over their indexes
+ * given by {@link ObjIndexer}. The sets created without an indexer
+ * use {@link ObjIndexer#getDefault()}, which is also used by the solver.
  */
 class PointsToSet implements Iterable<Obj> {
 
-    private final Set<Obj> set = Sets.newHybridSet();
+    private final ObjIndexer indexer;
+
+    private final SparseBitVector bits;
 
     /**
      * Constructs an empty points-to set.
      */
     PointsToSet() {
+        this(ObjIndexer.getDefault());
     }
 
     /**
      * Constructs a points-to set containing one object.
      */
     PointsToSet(Obj obj) {
+        this(ObjIndexer.getDefault(), obj);
+    }
+
+    /**
+     * Constructs an empty points-to set.
+     */
+    PointsToSet(ObjIndexer indexer) {
+        this(indexer, new SparseBitVector());
+    }
+
+    /**
+     * Constructs a points-to set containing one object.
+     */
+    PointsToSet(ObjIndexer indexer, Obj obj) {
+        this(indexer);
         addObject(obj);
     }
 
+    private PointsToSet(ObjIndexer indexer, SparseBitVector bits) {
+        this.indexer = indexer;
+        this.bits = bits;
+    }
+
     /**
      * Adds an object to this set.
      *
@@ -57,51 +89,178 @@ class PointsToSet implements Iterable<Obj> {
      * otherwise false.
      */
     boolean addObject(Obj obj) {
-        return set.add(obj);
+        return bits.set(indexer.getIndex(obj));
+    }
+
+    /**
+     * Adds all objects in given set to this set.
+     *
+     * @return a new set containing the objects which are in given set
+     * but were not in this set before the call.
+     */
+    PointsToSet addAllDiff(PointsToSet pts) {
+        if (pts.indexer != indexer) {
+            PointsToSet diff = new PointsToSet(indexer);
+            pts.forEach(obj -> {
+                if (addObject(obj)) {
+                    diff.addObject(obj);
+                }
+            });
+            return diff;
+        }
+        return new PointsToSet(indexer, pts.readBits(bits::addAllDiff));
+    }
+
+    /**
+     * Adds all objects in given set to this set.
+     *
+     * @return true if this points-to set changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addAll(PointsToSet pts) {
+        if (pts.indexer != indexer) {
+            boolean changed = false;
+            for (Obj obj : pts) {
+                changed |= addObject(obj);
+            }
+            return changed;
+        }
+        return pts.readBits(bits::addAll);
+    }
+
+    /**
+     * @return a copy of this set.
+     */
+    PointsToSet copy() {
+        return new PointsToSet(indexer, bits.copy());
+    }
+
+    /**
+     * Applies the function to the bit vector of this set. A set that
+     * is shared among threads holds its lock during the call, so that
+     * set-wise operations can read the bits of other sets without copying.
+     */
+    <R> R readBits(Function<SparseBitVector, R> function) {
+        return function.apply(bits);
+    }
+
+    /**
+     * @return a set of the objects in this set which satisfy the predicate.
+     * If all objects satisfy the predicate, returns this set itself.
+     */
+    PointsToSet filter(Predicate<Obj> predicate) {
+        PointsToSet result = null;
+        int passed = 0;
+        for (Iterator<Obj> it = bitsIterator(); it.hasNext(); ) {
+            Obj obj = it.next();
+            if (predicate.test(obj)) {
+                if (result != null) {
+                    result.addObject(obj);
+                } else {
+                    ++passed;
+                }
+            } else if (result == null) {
+                // first rejected object, collects the objects before it
+                result = new PointsToSet(indexer);
+                Iterator<Obj> iter = bitsIterator();
+                for (int i = 0; i < passed; ++i) {
+                    result.addObject(iter.next());
+                }
+            }
+        }
+        return result != null ? result : this;
     }
 
     /**
      * @return true if this points-to set contains the given object, otherwise false.
      */
     boolean contains(Obj obj) {
-        return set.contains(obj);
+        int index = indexer.indexOf(obj);
+        return index >= 0 && bits.get(index);
+    }
+
+    /**
+     * @return true if this set and given set contain the same objects.
+     */
+    boolean hasSameObjects(PointsToSet pts) {
+        if (pts.indexer != indexer) {
+            return size() == pts.size() && pts.objects().allMatch(this::contains);
+        }
+        return pts.readBits(bits::hasSameBits);
     }
 
     /**
      * @return whether this set if empty.
      */
     boolean isEmpty() {
-        return set.isEmpty();
+        return bits.isEmpty();
     }
 
     /**
      * @return the number of objects in this set.
      */
     int size() {
-        return set.size();
+        return bits.cardinality();
     }
 
     /**
      * @return all objects in this set.
      */
     Stream<Obj> objects() {
-        return set.stream();
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), size(),
+                Spliterator.DISTINCT | Spliterator.NONNULL), false);
     }
 
     /**
      * @return all objects in this set.
      */
     Set<Obj> getObjects() {
-        return Collections.unmodifiableSet(set);
+        return new AbstractSet<>() {
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Obj obj && PointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public Iterator<Obj> iterator() {
+                return PointsToSet.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return PointsToSet.this.size();
+            }
+        };
     }
 
     @Override
     public Iterator<Obj> iterator() {
-        return set.iterator();
+        return bitsIterator();
+    }
+
+    /**
+     * @return an iterator over the bits of this set, which is used by
+     * the operations of this class as it is not overridden by subclasses.
+     */
+    private Iterator<Obj> bitsIterator() {
+        PrimitiveIterator.OfInt iter = bits.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            @Override
+            public Obj next() {
+                return indexer.getObj(iter.nextInt());
+            }
+        };
     }
 
     @Override
     public String toString() {
-        return set.toString();
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        forEach(obj -> joiner.add(String.valueOf(obj)));
+        return joiner.toString();
     }
 }
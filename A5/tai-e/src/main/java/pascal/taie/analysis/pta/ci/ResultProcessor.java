@@ -25,15 +25,20 @@ package pascal.taie.analysis.pta.ci;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.Var;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
 import pascal.taie.util.collection.Views;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
@@ -45,9 +50,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static pascal.taie.util.collection.CollectionUtils.sum;
 
+/**
+ * Logs statistics of CI pointer analysis, and dumps the points-to sets
+ * to a file or compares them with a file.
+ * <p>
+ * The dumped points-to sets are grouped by kinds of pointers, and sorted
+ * by pointers in each group, so that they can be compared with the result
+ * by merging two sorted streams, without loading the file into memory.
+ * Sorting holds the names of the pointers of one section in memory,
+ * together with references to their points-to sets, thus dumping and
+ * comparing take memory linear in the size of the largest section;
+ * the points-to sets themselves are formatted one line at a time.
+ * If the file name ends with ".gz", the file is compressed by gzip.
+ */
 class ResultProcessor {
 
     private static final Logger logger = LogManager.getLogger(ResultProcessor.class);
@@ -59,6 +79,20 @@ class ResultProcessor {
      */
     private static final String SEP = " -> ";
 
+    /**
+     * Descriptions of the sections of dumped points-to sets.
+     */
+    private static final List<String> SECTIONS = List.of(
+            "variables", "static fields", "instance fields", "array indexes");
+
+    /**
+     * Kinds of pointers in each section.
+     */
+    private static final List<Class<? extends Pointer>> SECTION_CLASSES = List.of(
+            VarPtr.class, StaticField.class, InstanceField.class, ArrayIndex.class);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
     private static final DecimalFormat formatter = new DecimalFormat("#,###");
 
     private final AnalysisOptions options;
@@ -105,24 +139,38 @@ class ResultProcessor {
     }
 
     private static void dumpPointsToSet(CIPTAResult result, String output) {
-        PrintStream out;
         if (output != null) {  // if output file is given, then dump to the file
-            File outFile = new File(output);
-            try {
-                out = new PrintStream(new FileOutputStream(outFile));
-                logger.info("Dumping points-to set to {} ...", outFile);
-            } catch (FileNotFoundException e) {
-                throw new RuntimeException("Failed to open output file", e);
+            logger.info("Dumping points-to set to {} ...", output);
+            try (Writer out = newWriter(Path.of(output))) {
+                dumpPointsToSet(result, out);
+            } catch (IOException e) {
+                throw new AnalysisException(
+                        "Failed to dump points-to set to " + output, e);
             }
         } else {  // otherwise, dump to System.out
-            out = System.out;
+            try {
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+                dumpPointsToSet(result, out);
+                out.flush();
+            } catch (IOException e) {
+                throw new AnalysisException("Failed to dump points-to set", e);
+            }
         }
-        dumpPointers(out, getPointers(result, VarPtr.class), "variables");
-        dumpPointers(out, getPointers(result, StaticField.class), "static fields");
-        dumpPointers(out, getPointers(result, InstanceField.class), "instance fields");
-        dumpPointers(out, getPointers(result, ArrayIndex.class), "array indexes");
-        if (out != System.out) {
-            out.close();
+    }
+
+    private static void dumpPointsToSet(CIPTAResult result, Writer out)
+            throws IOException {
+        String newLine = System.lineSeparator();
+        for (int i = 0; i < SECTIONS.size(); ++i) {
+            out.write(HEADER + SECTIONS.get(i));
+            out.write(newLine);
+            for (PointerEntry entry : getEntries(result, i)) {
+                out.write(entry.pointer());
+                out.write(SEP);
+                out.write(toString(entry.pointsToSet()));
+                out.write(newLine);
+            }
+            out.write(newLine);
         }
     }
 
@@ -133,13 +181,28 @@ class ResultProcessor {
                 klass::isInstance);
     }
 
-    private static void dumpPointers(
-            PrintStream out, Collection<? extends Pointer> pointers, String desc) {
-        out.println(HEADER + desc);
-        pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> out.println(p + SEP + toString(p.getPointsToSet())));
-        out.println();
+    /**
+     * @return the pointers of given section and their points-to sets,
+     * sorted by the string representations of the pointers.
+     * The points-to sets are not copied.
+     */
+    private static List<PointerEntry> getEntries(CIPTAResult result, int section) {
+        List<PointerEntry> entries = new ArrayList<>();
+        if (section == 0) {
+            // a Var node may be shared by several variables,
+            // thus variables are dumped instead of Var nodes
+            PointerFlowGraph pfg = result.getPointerFlowGraph();
+            for (Var var : result.getVars()) {
+                entries.add(new PointerEntry(var.getMethod() + "/" + var.getName(),
+                        pfg.getVarPtr(var).getPointsToSet()));
+            }
+        } else {
+            for (Pointer p : getPointers(result, SECTION_CLASSES.get(section))) {
+                entries.add(new PointerEntry(p.toString(), p.getPointsToSet()));
+            }
+        }
+        entries.sort(Comparator.comparing(PointerEntry::pointer));
+        return entries;
     }
 
     private static String toString(PointsToSet pts) {
@@ -148,15 +211,134 @@ class ResultProcessor {
 
     private void comparePointsToSet(CIPTAResult result, String input) {
         logger.info("Comparing points-to set with {} ...", input);
-        var inputs = readPointsToSets(input);
-        Map<String, Pointer> pointers = new LinkedHashMap<>();
-        addPointers(pointers, getPointers(result, VarPtr.class));
-        addPointers(pointers, getPointers(result, StaticField.class));
-        addPointers(pointers, getPointers(result, InstanceField.class));
-        addPointers(pointers, getPointers(result, ArrayIndex.class));
         List<String> mismatches = new ArrayList<>();
-        pointers.forEach((pointerStr, pointer) -> {
-            String given = toString(pointer.getPointsToSet());
+        Path path = Path.of(input);
+        try {
+            if (isSorted(path)) {
+                mergeCompare(result, path, mismatches);
+            } else {
+                logger.warn("{} is not sorted, comparing in memory", input);
+                compareInMemory(result, path, mismatches);
+            }
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to read points-to set from " + input, e);
+        }
+        if (!mismatches.isEmpty()) {
+            throw new AnalysisException("Mismatches of points-to set\n" +
+                    String.join("\n", mismatches));
+        }
+    }
+
+    /**
+     * @return true if the sections of given file are in the dumped order,
+     * and the pointers in each section are sorted.
+     */
+    private static boolean isSorted(Path input) throws IOException {
+        try (BufferedReader reader = newReader(input)) {
+            int section = -1;
+            String prev = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(HEADER)) {
+                    int next = SECTIONS.indexOf(line.substring(HEADER.length()));
+                    if (next <= section) {
+                        return false;
+                    }
+                    section = next;
+                    prev = null;
+                } else if (line.contains(SEP)) {
+                    String pointer = line.split(SEP)[0];
+                    if (section < 0 || (prev != null && prev.compareTo(pointer) >= 0)) {
+                        return false;
+                    }
+                    prev = pointer;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Compares the points-to sets with a sorted file by merging
+     * the sorted pointers of each section with the lines of the file.
+     */
+    private static void mergeCompare(CIPTAResult result, Path input,
+                                     List<String> mismatches) throws IOException {
+        try (BufferedReader reader = newReader(input)) {
+            ExpectedLine expected = readExpectedLine(reader, -1);
+            for (int section = 0; section < SECTIONS.size(); ++section) {
+                for (PointerEntry entry : getEntries(result, section)) {
+                    // expected pointers before the given pointer are missing
+                    while (expected != null && (expected.section() < section ||
+                            (expected.section() == section &&
+                                    expected.pointer().compareTo(entry.pointer()) < 0))) {
+                        mismatches.add(String.format("%s, expected: %s, given: null",
+                                expected.pointer(), expected.pointsToSet()));
+                        expected = readExpectedLine(reader, expected.section());
+                    }
+                    String given = toString(entry.pointsToSet());
+                    if (expected != null && expected.section() == section &&
+                            expected.pointer().equals(entry.pointer())) {
+                        if (!given.equals(expected.pointsToSet())) {
+                            mismatches.add(String.format("%s, expected: %s, given: %s",
+                                    entry.pointer(), expected.pointsToSet(), given));
+                        }
+                        expected = readExpectedLine(reader, expected.section());
+                    } else {
+                        mismatches.add(String.format("%s, expected: null, given: %s",
+                                entry.pointer(), given));
+                    }
+                }
+            }
+            while (expected != null) {
+                mismatches.add(String.format("%s, expected: %s, given: null",
+                        expected.pointer(), expected.pointsToSet()));
+                expected = readExpectedLine(reader, expected.section());
+            }
+        }
+    }
+
+    /**
+     * Reads the next pointer line of the expected file.
+     *
+     * @param section the section of the previous line
+     * @return the next pointer line, or null if reaching the end of file.
+     */
+    private static ExpectedLine readExpectedLine(
+            BufferedReader reader, int section) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(HEADER)) {
+                section = SECTIONS.indexOf(line.substring(HEADER.length()));
+            } else if (line.contains(SEP)) {
+                String[] s = line.split(SEP);
+                return new ExpectedLine(section, s[0], s[1]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares the points-to sets with a file which is not sorted,
+     * by loading the whole file into memory.
+     */
+    private static void compareInMemory(CIPTAResult result, Path input,
+                                        List<String> mismatches) throws IOException {
+        Map<String, String> inputs = new LinkedHashMap<>();
+        try (BufferedReader reader = newReader(input)) {
+            reader.lines()
+                    .filter(line -> line.contains(SEP))
+                    .map(line -> line.split(SEP))
+                    .forEach(s -> inputs.put(s[0], s[1]));
+        }
+        Map<String, PointsToSet> pointers = new LinkedHashMap<>();
+        for (int section = 0; section < SECTIONS.size(); ++section) {
+            getEntries(result, section).forEach(e ->
+                    pointers.put(e.pointer(), e.pointsToSet()));
+        }
+        pointers.forEach((pointerStr, pts) -> {
+            String given = toString(pts);
             String expected = inputs.get(pointerStr);
             if (!given.equals(expected)) {
                 mismatches.add(String.format("%s, expected: %s, given: %s",
@@ -171,30 +353,39 @@ class ResultProcessor {
                     mismatches.add(String.format("%s, expected: %s, given: null",
                             pointerStr, expected));
                 });
-        if (!mismatches.isEmpty()) {
-            throw new AnalysisException("Mismatches of points-to set\n" +
-                    String.join("\n", mismatches));
+    }
+
+    private static Writer newWriter(Path path) throws IOException {
+        OutputStream out = Files.newOutputStream(path);
+        if (isGzip(path)) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
         }
+        return new BufferedWriter(new OutputStreamWriter(
+                out, StandardCharsets.UTF_8), BUFFER_SIZE);
     }
 
-    private static Map<String, String> readPointsToSets(String input) {
-        try {
-            Map<String, String> result = new LinkedHashMap<>();
-            Files.lines(Path.of(input))
-                    .filter(line -> line.contains(SEP))
-                    .map(line -> line.split(SEP))
-                    .forEach(s -> result.put(s[0], s[1]));
-            return result;
-        } catch (IOException e) {
-            throw new AnalysisException(
-                    "Failed to read points-to set from " + input, e);
+    private static BufferedReader newReader(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        if (isGzip(path)) {
+            in = new GZIPInputStream(in, BUFFER_SIZE);
         }
+        return new BufferedReader(new InputStreamReader(
+                in, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static boolean isGzip(Path path) {
+        return path.toString().endsWith(".gz");
     }
 
-    private static void addPointers(Map<String, Pointer> map,
-                                    Collection<? extends Pointer> pointers) {
-        pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> map.put(p.toString(), p));
+    /**
+     * A pointer (represented by its string) and its points-to set.
+     */
+    private record PointerEntry(String pointer, PointsToSet pointsToSet) {
+    }
+
+    /**
+     * A pointer line in expected file.
+     */
+    private record ExpectedLine(int section, String pointer, String pointsToSet) {
     }
 }
@@ -27,6 +27,7 @@ import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.ConcurrentCallGraph;
 import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
@@ -43,11 +44,14 @@ import pascal.taie.ir.stmt.StmtVisitor;
 import pascal.taie.ir.stmt.StoreArray;
 import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
-import pascal.taie.util.AnalysisException;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 class Solver {
 
@@ -55,6 +59,35 @@ class Solver {
 
     private final HeapModel heapModel;
 
+    /**
+     * Lock of the heap model and the dispatch of class hierarchy,
+     * which are not thread-safe. They are only accessed when new
+     * statements become reachable or dispatch results are not cached,
+     * thus the lock is rarely contended.
+     */
+    private final Object worldLock = new Object();
+
+    /**
+     * Whether merges pointer-equivalent variables before solving.
+     */
+    private final boolean varSubstitution;
+
+    /**
+     * Number of threads for solving. If it is greater than 1,
+     * the solver runs in parallel mode.
+     */
+    private final int threads;
+
+    /**
+     * Whether filters the objects flowing on PFG edges by types.
+     */
+    private final boolean typeFilter;
+
+    /**
+     * Indexer of the objects in points-to sets.
+     */
+    private final ObjIndexer objIndexer;
+
     private DefaultCallGraph callGraph;
 
     private PointerFlowGraph pointerFlowGraph;
@@ -65,8 +98,39 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
+    /**
+     * Cache of virtual dispatch, from call site and receiver type
+     * to the resolved callee.
+     */
+    private Map<Invoke, Map<Type, JMethod>> dispatchCache;
+
     Solver(HeapModel heapModel) {
+        this(heapModel, false);
+    }
+
+    Solver(HeapModel heapModel, boolean varSubstitution) {
+        this(heapModel, varSubstitution, 1, false);
+    }
+
+    Solver(HeapModel heapModel, boolean varSubstitution,
+           int threads, boolean typeFilter) {
+        this(heapModel, varSubstitution, threads, typeFilter,
+                ObjIndexer.getDefault());
+    }
+
+    /**
+     * @param objIndexer indexer of the objects in points-to sets. A solver
+     *                   whose objects are discarded afterwards, e.g., a
+     *                   pre-analysis, should use its own indexer instead
+     *                   of the default one, which lives as long as World.
+     */
+    Solver(HeapModel heapModel, boolean varSubstitution,
+           int threads, boolean typeFilter, ObjIndexer objIndexer) {
         this.heapModel = heapModel;
+        this.varSubstitution = varSubstitution;
+        this.threads = threads;
+        this.typeFilter = typeFilter;
+        this.objIndexer = objIndexer;
     }
 
     /**
@@ -81,9 +145,24 @@ class Solver {
      * Initializes pointer analysis.
      */
     private void initialize() {
-        workList = new WorkList();
-        pointerFlowGraph = new PointerFlowGraph();
-        callGraph = new DefaultCallGraph();
+        TypeFilter filter = typeFilter ?
+                new TypeFilter(World.get().getTypeSystem()) : null;
+        if (isParallel()) {
+            // variable substitution is not thread-safe,
+            // and CIPTA rejects it in parallel mode
+            workList = new ConcurrentWorkList(filter);
+            pointerFlowGraph = new PointerFlowGraph(
+                    objIndexer, null, typeFilter, true);
+            callGraph = new ConcurrentCallGraph();
+        } else {
+            workList = new WorkList(filter);
+            pointerFlowGraph = new PointerFlowGraph(objIndexer,
+                    varSubstitution ? new VarSubstitution() : null,
+                    typeFilter, false);
+            callGraph = new DefaultCallGraph();
+        }
+        dispatchCache = isParallel() ?
+                Maps.newConcurrentMap() : Maps.newMap();
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
         // initialize main method
@@ -92,52 +171,297 @@ class Solver {
         addReachable(main);
     }
 
+    private boolean isParallel() {
+        return threads > 1;
+    }
+
     /**
      * Processes new reachable method.
      */
     private void addReachable(JMethod method) {
-        // TODO - finish me
+        if (callGraph.addReachableMethod(method)) {
+            method.getIR().forEach(stmt -> stmt.accept(stmtProcessor));
+        }
     }
 
     /**
      * Processes statements in new reachable methods.
      */
     private class StmtProcessor implements StmtVisitor<Void> {
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+
+        @Override
+        public Void visit(New stmt) {
+            Obj obj;
+            synchronized (worldLock) {
+                obj = heapModel.getObj(stmt);
+            }
+            workList.addEntry(pointerFlowGraph.getVarPtr(stmt.getLValue()),
+                    new PointsToSet(objIndexer, obj));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()),
+                    pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(pointerFlowGraph.getStaticField(field),
+                        pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()),
+                        pointerFlowGraph.getStaticField(field));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                if (callee != null) {
+                    processCallEdge(new Edge<>(CallKind.STATIC, stmt, callee));
+                }
+            }
+            return null;
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                workList.addEntry(target, pts);
+            }
+        }
+    }
+
+    /**
+     * Makes the callee reachable and adds a call edge to the call graph.
+     * If the edge is new, connects arguments to parameters and return
+     * variables to the receiver of the call site.
+     * The callee is made reachable before the edge is added, so that
+     * its IR is built once by the call graph before any thread reads it.
+     */
+    private void processCallEdge(Edge<Invoke, JMethod> edge) {
+        addReachable(edge.getCallee());
+        if (callGraph.addEdge(edge)) {
+            processNewCallEdge(edge);
+        }
+    }
+
+    /**
+     * Processes a call edge which has just been added to the call graph.
+     */
+    private void processNewCallEdge(Edge<Invoke, JMethod> edge) {
+        Invoke callSite = edge.getCallSite();
+        JMethod callee = edge.getCallee();
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        List<Var> params = callee.getIR().getParams();
+        for (int i = 0; i < params.size(); ++i) {
+            addPFGEdge(pointerFlowGraph.getVarPtr(invokeExp.getArg(i)),
+                    pointerFlowGraph.getVarPtr(params.get(i)));
+        }
+        Var result = callSite.getLValue();
+        if (result != null) {
+            VarPtr resultPtr = pointerFlowGraph.getVarPtr(result);
+            for (Var ret : callee.getIR().getReturnVars()) {
+                addPFGEdge(pointerFlowGraph.getVarPtr(ret), resultPtr);
+            }
+        }
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
+     * <p>
+     * The pointer of an entry may represent a collapsed cycle of PFG,
+     * in which case the statements related to every variable in
+     * {@link PointerFlowGraph#getMembersOf(Pointer)} need to be processed.
+     * Similarly, a Var node may be shared by several variables
+     * (see {@link PointerFlowGraph#getVarsOf(VarPtr)}).
+     * <p>
+     * In parallel mode, the entries are processed by
+     * {@link ConcurrentWorkList#drain}, and the processing of each entry
+     * (including adding reachable methods, PFG edges and call edges)
+     * may run concurrently. The PFG, points-to sets and call graph
+     * are thread-safe in this mode, and as propagation is monotone,
+     * the final result is the same as the one of sequential mode
+     * (variable substitution is not supported in this mode).
      */
     private void analyze() {
-        // TODO - finish me
+        if (isParallel()) {
+            ((ConcurrentWorkList) workList).drain(threads, this::process);
+        } else {
+            while (!workList.isEmpty()) {
+                process(workList.pollEntry());
+            }
+        }
+    }
+
+    /**
+     * Processes a work-list entry: propagates its points-to set, and then
+     * processes the statements related to the variables of its pointer
+     * on the newly pointed objects.
+     */
+    private void process(WorkList.Entry entry) {
+        Pointer pointer = entry.pointer();
+        PointsToSet delta = propagate(pointer, entry.pointsToSet());
+        if (delta.isEmpty()) {
+            return;
+        }
+        for (Pointer member : pointerFlowGraph.getMembersOf(pointer)) {
+            processMember(member, delta);
+        }
+    }
+
+    /**
+     * Processes the statements related to the variables of the given
+     * pointer (which may be a member of a collapsed cycle) on its newly
+     * pointed objects.
+     */
+    private void processMember(Pointer member, PointsToSet delta) {
+        if (member instanceof VarPtr varPtr) {
+            for (Var var : pointerFlowGraph.getVarsOf(varPtr)) {
+                processVar(var, delta);
+            }
+        }
+    }
+
+    /**
+     * Processes the instance field/array accesses and instance calls
+     * on the given variable for its newly pointed objects.
+     */
+    private void processVar(Var var, PointsToSet delta) {
+        for (StoreField store : var.getStoreFields()) {
+            JField field = store.getFieldRef().resolve();
+            VarPtr from = pointerFlowGraph.getVarPtr(store.getRValue());
+            delta.forEach(obj -> addPFGEdge(from,
+                    pointerFlowGraph.getInstanceField(obj, field)));
+        }
+        for (LoadField load : var.getLoadFields()) {
+            JField field = load.getFieldRef().resolve();
+            VarPtr to = pointerFlowGraph.getVarPtr(load.getLValue());
+            delta.forEach(obj -> addPFGEdge(
+                    pointerFlowGraph.getInstanceField(obj, field), to));
+        }
+        for (StoreArray store : var.getStoreArrays()) {
+            VarPtr from = pointerFlowGraph.getVarPtr(store.getRValue());
+            delta.forEach(obj -> addPFGEdge(from,
+                    pointerFlowGraph.getArrayIndex(obj)));
+        }
+        for (LoadArray load : var.getLoadArrays()) {
+            VarPtr to = pointerFlowGraph.getVarPtr(load.getLValue());
+            delta.forEach(obj -> addPFGEdge(
+                    pointerFlowGraph.getArrayIndex(obj), to));
+        }
+        processCall(var, delta);
     }
 
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
+     * The difference set can be obtained by {@link PointsToSet#addAllDiff},
+     * which merges the bit vectors word by word. After propagating to
+     * a successor, call {@link #detectCycle} on the edge.
+     * Objects should flow to successors via the work list, which filters
+     * them by the types of the successors when type filtering is enabled.
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-        return null;
+        PointsToSet diff = pointer.getPointsToSet().addAllDiff(pointsToSet);
+        if (!diff.isEmpty()) {
+            // cycle collapsing may change the successors
+            for (Pointer succ : List.copyOf(pointerFlowGraph.getSuccsOf(pointer))) {
+                workList.addEntry(succ, diff);
+                if (!isParallel()) { // cycles are not collapsed in parallel mode
+                    detectCycle(pointer, succ);
+                }
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Lazy cycle detection: if propagation along edge source -> target
+     * leaves both pointers with the same points-to set, the edge may be
+     * in a cycle of PFG. Collapses such cycle, propagates the objects
+     * of the cycle that its successors miss, and processes the statements
+     * of the merged pointers on the objects they did not point to.
+     */
+    private void detectCycle(Pointer source, Pointer target) {
+        if (source.getPointsToSet().hasSameObjects(target.getPointsToSet())) {
+            PointerFlowGraph.Collapse collapse =
+                    pointerFlowGraph.collapseCycle(source, target);
+            if (collapse != null) {
+                collapse.succEntries().forEach(entry ->
+                        workList.addEntry(entry.pointer(), entry.pointsToSet()));
+                collapse.memberDeltas().forEach(entry ->
+                        processMember(entry.pointer(), entry.pointsToSet()));
+            }
+        }
     }
 
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
+     * The receiver objects are grouped by their types, so that each type
+     * is dispatched once per call site, and the resolved call edges are
+     * added by {@link #addCallEdges} in one batch.
      *
-     * @param var the variable that holds receiver objects
-     * @param recv a new discovered object pointed by the variable.
+     * @param var   the variable that holds receiver objects
+     * @param recvs new discovered objects pointed by the variable.
+     */
+    private void processCall(Var var, PointsToSet recvs) {
+        List<Invoke> callSites = var.getInvokes();
+        if (callSites.isEmpty()) {
+            return;
+        }
+        Map<Type, PointsToSet> recvsOfTypes = Maps.newHybridMap();
+        recvs.forEach(recv -> recvsOfTypes.computeIfAbsent(recv.getType(),
+                t -> new PointsToSet(objIndexer)).addObject(recv));
+        List<Edge<Invoke, JMethod>> edges = new ArrayList<>();
+        // receiver objects passed along each edge
+        List<PointsToSet> edgeRecvs = new ArrayList<>();
+        for (Invoke callSite : callSites) {
+            CallKind kind = CallGraphs.getCallKind(callSite);
+            recvsOfTypes.forEach((type, objs) -> {
+                JMethod callee = dispatch(type, callSite);
+                if (callee != null) {
+                    edges.add(new Edge<>(kind, callSite, callee));
+                    edgeRecvs.add(objs);
+                }
+            });
+        }
+        addCallEdges(edges);
+        for (int i = 0; i < edges.size(); ++i) {
+            JMethod callee = edges.get(i).getCallee();
+            workList.addEntry(
+                    pointerFlowGraph.getVarPtr(callee.getIR().getThis()),
+                    edgeRecvs.get(i));
+        }
+    }
+
+    /**
+     * Adds the call edges to the call graph in one batch, and processes
+     * the edges which are new. Like {@link #processCallEdge}, the callees
+     * are made reachable before the edges are added.
      */
-    private void processCall(Var var, Obj recv) {
-        // TODO - finish me
+    private void addCallEdges(List<Edge<Invoke, JMethod>> edges) {
+        edges.forEach(edge -> addReachable(edge.getCallee()));
+        callGraph.addEdges(edges).forEach(this::processNewCallEdge);
     }
 
     /**
@@ -150,10 +474,42 @@ class Solver {
      */
     private JMethod resolveCallee(Obj recv, Invoke callSite) {
         Type type = recv != null ? recv.getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+        return dispatch(type, callSite);
+    }
+
+    /**
+     * Resolves the callee of a call site with the receiver type.
+     * The results of instance call sites are cached.
+     */
+    private JMethod dispatch(Type type, Invoke callSite) {
+        if (type == null) {
+            synchronized (worldLock) {
+                return CallGraphs.resolveCallee(null, callSite);
+            }
+        }
+        Map<Type, JMethod> callees = dispatchCache.computeIfAbsent(callSite,
+                cs -> isParallel() ? Maps.newConcurrentMap() : Maps.newHybridMap());
+        JMethod callee = callees.get(type);
+        if (callee == null) {
+            synchronized (worldLock) {
+                callee = CallGraphs.resolveCallee(type, callSite);
+            }
+            if (callee != null) { // failed resolution is not cached
+                callees.put(type, callee);
+            }
+        }
+        return callee;
     }
 
     CIPTAResult getResult() {
-        return new CIPTAResult(pointerFlowGraph, callGraph);
+        return getResult(CIPTAResult.DEFAULT_FIELD_CACHE_SIZE);
+    }
+
+    /**
+     * @param fieldCacheSize maximum number of cached points-to sets
+     *                       of field expressions in the result
+     */
+    CIPTAResult getResult(int fieldCacheSize) {
+        return new CIPTAResult(pointerFlowGraph, callGraph, fieldCacheSize);
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.type.NullType;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Filters the objects that flow into pointers by the declared types
+ * of the pointers, e.g., a variable of type String never points to
+ * a HashMap object. The results of subtype checks are cached.
+ */
+class TypeFilter {
+
+    private final TypeSystem typeSystem;
+
+    /**
+     * Cache of subtype checks, from pointer type to object type
+     * to whether the object can be assigned to the pointer.
+     * The cache of a pointer type is looked up once per filtering,
+     * and no key is allocated to look up the objects.
+     */
+    private final Map<Type, Map<Type, Boolean>> assignable = Maps.newConcurrentMap();
+
+    TypeFilter(TypeSystem typeSystem) {
+        this.typeSystem = typeSystem;
+    }
+
+    /**
+     * @return the objects in pts which can be assigned to the pointer.
+     * If all objects can be assigned, returns pts itself.
+     */
+    PointsToSet filter(Pointer pointer, PointsToSet pts) {
+        Type type = pointer.getType();
+        if (!(type instanceof ReferenceType) || type instanceof NullType) {
+            // unknown or special types, e.g., null type, are not filtered
+            return pts;
+        }
+        Map<Type, Boolean> cache = assignable.computeIfAbsent(type,
+                unused -> Maps.newConcurrentMap());
+        return pts.filter(obj -> isAssignable(obj.getType(), type, cache));
+    }
+
+    private boolean isAssignable(Type objType, Type type,
+                                 Map<Type, Boolean> cache) {
+        Boolean result = cache.get(objType);
+        if (result == null) {
+            // type system may create types on demand, which is
+            // not thread-safe
+            synchronized (typeSystem) {
+                result = typeSystem.isSubtype(type, objType);
+            }
+            cache.put(objType, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Offline variable substitution for pointer analysis.
+ * <p>
+ * A variable whose only definition is a copy {@code x = y} always
+ * points to the same objects as {@code y}, thus they can share one node
+ * in the pointer flow graph. This class detects such pointer-equivalent
+ * variables by value numbering the definitions of each method: a variable
+ * defined only by a copy takes the value number of the copied variable,
+ * and any other variable (e.g., defined by {@code New}, loads, calls,
+ * multiple definitions, or parameters) gets a fresh value number, i.e.,
+ * itself. Variables with the same value number are merged.
+ * <p>
+ * Methods are analyzed on demand, when any of their variables is queried.
+ */
+class VarSubstitution {
+
+    /**
+     * Map from merged variables to their representatives.
+     */
+    private final Map<Var, Var> representatives = Maps.newMap();
+
+    /**
+     * Map from representative variables to the variables merged into them.
+     */
+    private final MultiMap<Var, Var> mergedVars = Maps.newMultiMap();
+
+    private final Set<JMethod> analyzedMethods = Sets.newSet();
+
+    /**
+     * Provides the IR of the analyzed methods.
+     */
+    private final Function<JMethod, IR> irProvider;
+
+    VarSubstitution() {
+        this(JMethod::getIR);
+    }
+
+    VarSubstitution(Function<JMethod, IR> irProvider) {
+        this.irProvider = irProvider;
+    }
+
+    /**
+     * @return the representative of given variable.
+     */
+    Var getRepresentative(Var var) {
+        analyze(var.getMethod());
+        return representatives.getOrDefault(var, var);
+    }
+
+    /**
+     * @return the variables represented by given representative variable,
+     * including the representative itself.
+     */
+    Set<Var> getVarsOf(Var rep) {
+        analyze(rep.getMethod());
+        Set<Var> vars = Sets.newHybridSet(mergedVars.get(rep));
+        vars.add(rep);
+        return vars;
+    }
+
+    private void analyze(JMethod method) {
+        if (!analyzedMethods.add(method)) {
+            return;
+        }
+        IR ir = irProvider.apply(method);
+        Map<Var, Integer> defCounts = Maps.newMap();
+        Map<Var, Copy> copyDefs = Maps.newMap();
+        for (Stmt stmt : ir) {
+            LValue def = stmt.getDef().orElse(null);
+            if (def instanceof Var var) {
+                defCounts.merge(var, 1, Integer::sum);
+                if (stmt instanceof Copy copy) {
+                    copyDefs.put(var, copy);
+                }
+            }
+        }
+        // parameters and this variable receive objects from call sites
+        Set<Var> inputs = Sets.newHybridSet(ir.getParams());
+        if (ir.getThis() != null) {
+            inputs.add(ir.getThis());
+        }
+        Map<Var, Var> valueNumbers = Maps.newMap();
+        for (Var var : ir.getVars()) {
+            Var vn = getValueNumber(var, defCounts, copyDefs, inputs,
+                    valueNumbers, Sets.newHybridSet());
+            if (vn != var) {
+                representatives.put(var, vn);
+                mergedVars.put(vn, var);
+            }
+        }
+    }
+
+    /**
+     * @return the value number (represented by a variable) of given variable.
+     */
+    private static Var getValueNumber(
+            Var var, Map<Var, Integer> defCounts, Map<Var, Copy> copyDefs,
+            Set<Var> inputs, Map<Var, Var> valueNumbers, Set<Var> visiting) {
+        Var vn = valueNumbers.get(var);
+        if (vn != null) {
+            return vn;
+        }
+        Copy copy = copyDefs.get(var);
+        if (copy != null && defCounts.get(var) == 1 && !inputs.contains(var)
+                && visiting.add(var)) {
+            vn = getValueNumber(copy.getRValue(), defCounts, copyDefs,
+                    inputs, valueNumbers, visiting);
+        } else {
+            // not a single-copy variable, or in a copy cycle
+            vn = var;
+        }
+        valueNumbers.put(var, vn);
+        return vn;
+    }
+}
@@ -22,21 +22,65 @@
 
 package pascal.taie.analysis.pta.ci;
 
-import java.util.ArrayDeque;
-import java.util.Queue;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Represents work list in pointer analysis.
+ * The work list keeps at most one entry for each pointer: when a pointer
+ * which is already in the work list is added again, the new points-to set
+ * is merged into the pending one, so that each pointer propagates
+ * the accumulated difference only once.
  */
 class WorkList {
 
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    /**
+     * Filter of the objects flowing into pointers, or null if
+     * type filtering is disabled.
+     */
+    private final TypeFilter typeFilter;
 
     /**
-     * Adds an entry to the work list.
+     * Map from pointers to their pending points-to sets, in insertion order.
+     */
+    private final Map<Pointer, Pending> entries = new LinkedHashMap<>();
+
+    WorkList() {
+        this(null);
+    }
+
+    WorkList(TypeFilter typeFilter) {
+        this.typeFilter = typeFilter;
+    }
+
+    /**
+     * Adds an entry to the work list. Entries of pointers that are merged
+     * into a cycle of PFG are coalesced into their representative.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        pointsToSet = filter(pointer, pointsToSet);
+        if (pointsToSet.isEmpty()) {
+            return;
+        }
+        Pointer rep = pointer.getRepresentative();
+        Pending pending = entries.get(rep);
+        if (pending == null) {
+            entries.put(rep, new Pending(pointsToSet));
+        } else {
+            pending.merge(pointsToSet);
+        }
+    }
+
+    /**
+     * Filters the objects that cannot flow into the pointer by its
+     * declared type. As every object flowing along a PFG edge enters
+     * the work list before it is added to the points-to set of the target,
+     * this filters propagation on all PFG edges.
+     */
+    PointsToSet filter(Pointer pointer, PointsToSet pointsToSet) {
+        return typeFilter != null ?
+                typeFilter.filter(pointer, pointsToSet) : pointsToSet;
     }
 
     /**
@@ -44,7 +88,14 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Iterator<Map.Entry<Pointer, Pending>> iter = entries.entrySet().iterator();
+        if (!iter.hasNext()) {
+            return null;
+        }
+        Map.Entry<Pointer, Pending> e = iter.next();
+        iter.remove();
+        // the pointer may have been merged after the entry was added
+        return new Entry(e.getKey().getRepresentative(), e.getValue().pointsToSet);
     }
 
     /**
@@ -60,4 +111,32 @@ class WorkList {
      */
     record Entry(Pointer pointer, PointsToSet pointsToSet) {
     }
+
+    /**
+     * Pending points-to set of a pointer. The set given by the first
+     * insertion may be shared with its producer, thus it is copied
+     * before the first merge.
+     */
+    static class Pending {
+
+        private PointsToSet pointsToSet;
+
+        private boolean owned = false;
+
+        Pending(PointsToSet pointsToSet) {
+            this.pointsToSet = pointsToSet;
+        }
+
+        PointsToSet getPointsToSet() {
+            return pointsToSet;
+        }
+
+        void merge(PointsToSet pts) {
+            if (!owned) {
+                pointsToSet = pointsToSet.copy();
+                owned = true;
+            }
+            pointsToSet.addAll(pts);
+        }
+    }
 }
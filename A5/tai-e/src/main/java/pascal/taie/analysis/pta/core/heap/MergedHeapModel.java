@@ -0,0 +1,60 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.heap;
+
+import pascal.taie.ir.exp.ReferenceLiteral;
+import pascal.taie.ir.stmt.New;
+
+import java.util.Map;
+
+/**
+ * Heap model which merges type-consistent allocation sites
+ * (in the style of Mahjong), on top of another heap model.
+ * The allocation sites to be merged are given by a pre-analysis,
+ * and each merged site is represented by one of the sites,
+ * so that all of them share the object of the representative.
+ */
+public class MergedHeapModel implements HeapModel {
+
+    private final HeapModel base;
+
+    /**
+     * Map from allocation sites to their representative sites.
+     */
+    private final Map<New, New> representatives;
+
+    public MergedHeapModel(HeapModel base, Map<New, New> representatives) {
+        this.base = base;
+        this.representatives = representatives;
+    }
+
+    @Override
+    public Obj getObj(New allocSite) {
+        return base.getObj(representatives.getOrDefault(allocSite, allocSite));
+    }
+
+    @Override
+    public Obj getConstantObj(ReferenceLiteral value) {
+        return base.getConstantObj(value);
+    }
+}
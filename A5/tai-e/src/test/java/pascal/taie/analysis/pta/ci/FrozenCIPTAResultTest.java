@@ -0,0 +1,134 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JClassLoader;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.Modifier;
+import pascal.taie.language.type.ClassType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public class FrozenCIPTAResultTest {
+
+    private static final JClassLoader LOADER = new JClassLoader() {
+
+        @Override
+        public JClass loadClass(String name) {
+            return null;
+        }
+
+        @Override
+        public Collection<JClass> getLoadedClasses() {
+            return List.of();
+        }
+    };
+
+    private final ClassType type = new ClassType(LOADER, "T");
+
+    private final JClass jclass = new JClass(LOADER, "T");
+
+    private final JField f = new JField(jclass, "f", Set.of(), type,
+            AnnotationHolder.emptyHolder());
+
+    private final JField g = new JField(jclass, "g", Set.of(Modifier.STATIC),
+            type, AnnotationHolder.emptyHolder());
+
+    private final PointerFlowGraph pfg = new PointerFlowGraph(new ObjIndexer());
+
+    private final Obj o1 = new MockObj("o1", "o1", type);
+
+    private final Obj o2 = new MockObj("o2", "o2", type);
+
+    private final Obj o3 = new MockObj("o3", "o3", type);
+
+    private Var var(String name, Obj... objs) {
+        Var var = new Var(null, name, type, 0);
+        addObjects(pfg.getVarPtr(var), objs);
+        return var;
+    }
+
+    private static void addObjects(Pointer pointer, Obj... objs) {
+        for (Obj obj : objs) {
+            pointer.getPointsToSet().addObject(obj);
+        }
+    }
+
+    @Test
+    public void testSameAsLiveResult() {
+        Var x = var("x", o1, o2);
+        // y has the same objects as x in another points-to set
+        Var y = var("y", o2, o1);
+        Var z = var("z", o3);
+        Var w = var("w");
+        addObjects(pfg.getInstanceField(o1, f), o3);
+        addObjects(pfg.getInstanceField(o2, f), o1);
+        addObjects(pfg.getInstanceField(o3, f), o2, o3);
+        addObjects(pfg.getStaticField(g), o2);
+        CIPTAResult live = new CIPTAResult(pfg, new DefaultCallGraph(), 16);
+        PointerAnalysisResult frozen = live.freeze();
+        Assert.assertEquals(Set.copyOf(live.getVars()),
+                Set.copyOf(frozen.getVars()));
+        Assert.assertEquals(Set.copyOf(live.getObjects()),
+                Set.copyOf(frozen.getObjects()));
+        for (Var var : List.of(x, y, z, w)) {
+            Assert.assertEquals(live.getPointsToSet(var),
+                    frozen.getPointsToSet(var));
+            Assert.assertEquals(live.getPointsToSet(var, f),
+                    frozen.getPointsToSet(var, f));
+        }
+        Assert.assertEquals(live.getPointsToSet(g), frozen.getPointsToSet(g));
+        // deduplicated sets keep answering for their own pointers
+        Assert.assertEquals(Set.of(o1, o2), frozen.getPointsToSet(y));
+        Assert.assertTrue(frozen.getPointsToSet(y).contains(o1));
+        Assert.assertFalse(frozen.getPointsToSet(y).contains(o3));
+        Assert.assertEquals(Set.of(o3), frozen.getPointsToSet(z));
+        Assert.assertEquals(Set.of(o1, o3), frozen.getPointsToSet(x, f));
+        Assert.assertEquals(Set.of(o2, o3), frozen.getPointsToSet(z, f));
+        Assert.assertTrue(frozen.getPointsToSet(w).isEmpty());
+        Assert.assertTrue(frozen.getPointsToSet(w, f).isEmpty());
+    }
+
+    @Test
+    public void testSharedPointsToSet() {
+        Var x = var("x", o1);
+        Var y = var("y");
+        // x and y share one points-to set, e.g., merged in a cycle
+        pfg.getVarPtr(y).setRepresentative(pfg.getVarPtr(x));
+        PointerAnalysisResult frozen =
+                new CIPTAResult(pfg, new DefaultCallGraph(), 16).freeze();
+        Assert.assertEquals(Set.of(o1), frozen.getPointsToSet(x));
+        Assert.assertEquals(Set.of(o1), frozen.getPointsToSet(y));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.MergedHeapModel;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.exp.ReferenceLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JClassLoader;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.type.ClassType;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class MahjongPreAnalysisTest {
+
+    private static final JClassLoader LOADER = new JClassLoader() {
+
+        @Override
+        public JClass loadClass(String name) {
+            return null;
+        }
+
+        @Override
+        public Collection<JClass> getLoadedClasses() {
+            return List.of();
+        }
+    };
+
+    private final ClassType a = new ClassType(LOADER, "A");
+
+    private final ClassType b = new ClassType(LOADER, "B");
+
+    private final ClassType c = new ClassType(LOADER, "C");
+
+    private final JField f = new JField(new JClass(LOADER, "A"), "f",
+            Set.of(), a, AnnotationHolder.emptyHolder());
+
+    private final PointerFlowGraph pfg = new PointerFlowGraph(new ObjIndexer());
+
+    /**
+     * Heap model of the pre-analysis, which maps each allocation site
+     * to its own object.
+     */
+    private final Map<New, Obj> objs = new HashMap<>();
+
+    private final HeapModel heapModel = new HeapModel() {
+
+        @Override
+        public Obj getObj(New allocSite) {
+            return objs.get(allocSite);
+        }
+
+        @Override
+        public Obj getConstantObj(ReferenceLiteral value) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private New newSite(ClassType type) {
+        Var var = new Var(null, "v" + objs.size(), type, objs.size());
+        New site = new New(null, var, new NewInstance(type));
+        Obj obj = new MockObj("o" + objs.size(), site, type);
+        objs.put(site, obj);
+        // the object is pointed to by the variable of its allocation site
+        pfg.getVarPtr(var).getPointsToSet().addObject(obj);
+        return site;
+    }
+
+    private void addFieldEdge(New base, New target) {
+        pfg.getInstanceField(objs.get(base), f)
+                .getPointsToSet().addObject(objs.get(target));
+    }
+
+    private Map<New, New> computeMergeMap() {
+        return MahjongPreAnalysis.computeMergeMap(
+                new CIPTAResult(pfg, new DefaultCallGraph(), 16));
+    }
+
+    @Test
+    public void testMergeEquivalentSites() {
+        New s1 = newSite(a);
+        New s2 = newSite(a);
+        New s3 = newSite(b);
+        // s1.f -> s3, s2.f -> s3
+        addFieldEdge(s1, s3);
+        addFieldEdge(s2, s3);
+        Map<New, New> mergeMap = computeMergeMap();
+        Assert.assertEquals(Map.of(s2, s1), mergeMap);
+        HeapModel merged = new MergedHeapModel(heapModel, mergeMap);
+        Assert.assertSame(objs.get(s1), merged.getObj(s1));
+        Assert.assertSame(objs.get(s1), merged.getObj(s2));
+        Assert.assertSame(objs.get(s3), merged.getObj(s3));
+    }
+
+    @Test
+    public void testKeepDistinguishableSites() {
+        New s1 = newSite(a);
+        New s2 = newSite(a);
+        New s3 = newSite(b);
+        New s4 = newSite(c);
+        // s1.f -> s3, s2.f -> s4, where s3 and s4 have different types
+        addFieldEdge(s1, s3);
+        addFieldEdge(s2, s4);
+        Map<New, New> mergeMap = computeMergeMap();
+        Assert.assertTrue(mergeMap.isEmpty());
+        HeapModel merged = new MergedHeapModel(heapModel, mergeMap);
+        Assert.assertSame(objs.get(s1), merged.getObj(s1));
+        Assert.assertSame(objs.get(s2), merged.getObj(s2));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class PointerFlowGraphTest {
+
+    private final PointerFlowGraph pfg = new PointerFlowGraph(new ObjIndexer());
+
+    private VarPtr varPtr(String name) {
+        return pfg.getVarPtr(new Var(null, name, null, 0));
+    }
+
+    @Test
+    public void testSCCOfCycle() {
+        VarPtr a = varPtr("a");
+        VarPtr b = varPtr("b");
+        VarPtr c = varPtr("c");
+        VarPtr d = varPtr("d");
+        // a -> b -> c -> a, c -> d
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, c);
+        pfg.addEdge(c, a);
+        pfg.addEdge(c, d);
+        Assert.assertEquals(Set.of(a, b, c), pfg.getSCCOf(a));
+        Assert.assertEquals(Set.of(a, b, c), pfg.getSCCOf(c));
+        Assert.assertEquals(Set.of(d), pfg.getSCCOf(d));
+    }
+
+    @Test
+    public void testSCCOfAcyclicNode() {
+        VarPtr a = varPtr("a");
+        VarPtr b = varPtr("b");
+        VarPtr c = varPtr("c");
+        // a -> b -> c, a -> c
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, c);
+        pfg.addEdge(a, c);
+        Assert.assertEquals(Set.of(a), pfg.getSCCOf(a));
+        Assert.assertEquals(Set.of(b), pfg.getSCCOf(b));
+    }
+
+    @Test
+    public void testSCCOfNestedCycles() {
+        VarPtr a = varPtr("a");
+        VarPtr b = varPtr("b");
+        VarPtr c = varPtr("c");
+        VarPtr d = varPtr("d");
+        VarPtr e = varPtr("e");
+        // a <-> b, b -> c -> d -> b, d -> e -> e
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, a);
+        pfg.addEdge(b, c);
+        pfg.addEdge(c, d);
+        pfg.addEdge(d, b);
+        pfg.addEdge(d, e);
+        pfg.addEdge(e, e);
+        Assert.assertEquals(Set.of(a, b, c, d), pfg.getSCCOf(d));
+        Assert.assertEquals(Set.of(e), pfg.getSCCOf(e));
+    }
+
+    @Test
+    public void testCollapseCycle() {
+        VarPtr a = varPtr("a");
+        VarPtr b = varPtr("b");
+        VarPtr c = varPtr("c");
+        VarPtr d = varPtr("d");
+        Obj o1 = new MockObj("o1", "o1", null);
+        Obj o2 = new MockObj("o2", "o2", null);
+        // a <-> b, b -> c, a -> d
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, a);
+        pfg.addEdge(b, c);
+        pfg.addEdge(a, d);
+        a.getPointsToSet().addObject(o1);
+        b.getPointsToSet().addObject(o2);
+        c.getPointsToSet().addObject(o2);
+        d.getPointsToSet().addObject(o1);
+        PointerFlowGraph.Collapse collapse = pfg.collapseCycle(a, b);
+        Assert.assertNotNull(collapse);
+        Assert.assertSame(a, b.getRepresentative());
+        Assert.assertSame(a.getPointsToSet(), b.getPointsToSet());
+        // the representative keeps the union of the merged points-to sets
+        Assert.assertEquals(Set.of(o1, o2), a.getPointsToSet().getObjects());
+        Assert.assertEquals(Set.of(a, b), pfg.getMembersOf(b));
+        Assert.assertEquals(Set.of(c, d), pfg.getSuccsOf(b));
+        // only the missing objects are propagated and processed
+        Assert.assertEquals(Map.of(c, Set.of(o1), d, Set.of(o2)),
+                toMap(collapse.succEntries()));
+        Assert.assertEquals(Map.of(a, Set.of(o2), b, Set.of(o1)),
+                toMap(collapse.memberDeltas()));
+        // each edge is checked only once
+        Assert.assertNull(pfg.collapseCycle(a, b));
+    }
+
+    @Test
+    public void testCollapseCycleWithSameObjects() {
+        VarPtr a = varPtr("a");
+        VarPtr b = varPtr("b");
+        VarPtr c = varPtr("c");
+        Obj o1 = new MockObj("o1", "o1", null);
+        // a <-> b, b -> c
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, a);
+        pfg.addEdge(b, c);
+        a.getPointsToSet().addObject(o1);
+        b.getPointsToSet().addObject(o1);
+        c.getPointsToSet().addObject(o1);
+        PointerFlowGraph.Collapse collapse = pfg.collapseCycle(a, b);
+        Assert.assertNotNull(collapse);
+        Assert.assertEquals(Set.of(o1), a.getPointsToSet().getObjects());
+        Assert.assertTrue(collapse.succEntries().isEmpty());
+        Assert.assertTrue(collapse.memberDeltas().isEmpty());
+    }
+
+    private static Map<Pointer, Set<Obj>> toMap(List<WorkList.Entry> entries) {
+        Map<Pointer, Set<Obj>> map = new HashMap<>();
+        entries.forEach(e -> map.put(e.pointer(), e.pointsToSet().getObjects()));
+        return map;
+    }
+
+    @Test
+    public void testNoCollapseWithoutCycle() {
+        VarPtr a = varPtr("a");
+        VarPtr b = varPtr("b");
+        pfg.addEdge(a, b);
+        Assert.assertNull(pfg.collapseCycle(a, b));
+        Assert.assertSame(b, b.getRepresentative());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class SparseBitVectorTest {
+
+    private static SparseBitVector of(int... bits) {
+        SparseBitVector v = new SparseBitVector();
+        for (int bit : bits) {
+            v.set(bit);
+        }
+        return v;
+    }
+
+    private static TreeSet<Integer> toSet(SparseBitVector v) {
+        TreeSet<Integer> set = new TreeSet<>();
+        for (PrimitiveIterator.OfInt it = v.iterator(); it.hasNext(); ) {
+            set.add(it.nextInt());
+        }
+        return set;
+    }
+
+    @Test
+    public void testSetAndGet() {
+        SparseBitVector v = new SparseBitVector();
+        Assert.assertTrue(v.isEmpty());
+        Assert.assertTrue(v.set(3));
+        Assert.assertFalse(v.set(3));
+        Assert.assertTrue(v.set(100_000));
+        Assert.assertTrue(v.get(3));
+        Assert.assertTrue(v.get(100_000));
+        Assert.assertFalse(v.get(4));
+        Assert.assertFalse(v.get(99_999));
+        Assert.assertEquals(2, v.cardinality());
+    }
+
+    @Test
+    public void testIteratorIsAscending() {
+        SparseBitVector v = of(70_000, 5, 512, 511, 0, 1024);
+        Assert.assertEquals(new TreeSet<>(List.of(
+                0, 5, 511, 512, 1024, 70_000)), toSet(v));
+    }
+
+    @Test
+    public void testAddAllDiff() {
+        SparseBitVector v = of(1, 2, 600);
+        SparseBitVector diff = v.addAllDiff(of(2, 3, 600, 5000));
+        Assert.assertEquals(new TreeSet<>(List.of(3, 5000)), toSet(diff));
+        Assert.assertEquals(new TreeSet<>(List.of(1, 2, 3, 600, 5000)),
+                toSet(v));
+        Assert.assertEquals(5, v.cardinality());
+        Assert.assertTrue(v.addAllDiff(of(1, 5000)).isEmpty());
+    }
+
+    @Test
+    public void testAddAll() {
+        SparseBitVector v = of(10);
+        Assert.assertTrue(v.addAll(of(10, 20_000)));
+        Assert.assertFalse(v.addAll(of(20_000)));
+        Assert.assertFalse(v.addAll(new SparseBitVector()));
+        Assert.assertEquals(2, v.cardinality());
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        SparseBitVector v = of(1, 1000);
+        SparseBitVector copy = v.copy();
+        copy.set(2);
+        Assert.assertFalse(v.get(2));
+        Assert.assertTrue(copy.hasSameBits(of(1, 2, 1000)));
+        Assert.assertFalse(copy.hasSameBits(v));
+    }
+
+    @Test
+    public void testHasSameBits() {
+        Assert.assertTrue(of(1, 700).hasSameBits(of(700, 1)));
+        Assert.assertFalse(of(1, 700).hasSameBits(of(1, 701)));
+        Assert.assertFalse(of(1).hasSameBits(of(1, 70_000)));
+        Assert.assertTrue(new SparseBitVector().hasSameBits(new SparseBitVector()));
+    }
+
+    @Test
+    public void testRandomAgainstTreeSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; ++round) {
+            SparseBitVector v = new SparseBitVector();
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int i = 0; i < 200; ++i) {
+                int bit = random.nextInt(1 << 16);
+                Assert.assertEquals(expected.add(bit), v.set(bit));
+            }
+            SparseBitVector other = new SparseBitVector();
+            TreeSet<Integer> otherBits = new TreeSet<>();
+            for (int i = 0; i < 200; ++i) {
+                int bit = random.nextInt(1 << 16);
+                other.set(bit);
+                otherBits.add(bit);
+            }
+            TreeSet<Integer> expectedDiff = new TreeSet<>(otherBits);
+            expectedDiff.removeAll(expected);
+            expected.addAll(otherBits);
+            Assert.assertEquals(expectedDiff, toSet(v.addAllDiff(other)));
+            Assert.assertEquals(expected, toSet(v));
+            Assert.assertEquals(expected.size(), v.cardinality());
+        }
+    }
+}
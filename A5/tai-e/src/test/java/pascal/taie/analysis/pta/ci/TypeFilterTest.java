@@ -0,0 +1,185 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JClassLoader;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class TypeFilterTest {
+
+    /**
+     * Type system of the hierarchy: B and C are subclasses of A.
+     * It counts the subtype checks.
+     */
+    private static class TestTypeSystem implements TypeSystem {
+
+        private final Map<Type, Type> superTypes;
+
+        private int checks = 0;
+
+        private TestTypeSystem(Map<Type, Type> superTypes) {
+            this.superTypes = superTypes;
+        }
+
+        @Override
+        public boolean isSubtype(Type supertype, Type subtype) {
+            ++checks;
+            return supertype.equals(subtype) ||
+                    supertype.equals(superTypes.get(subtype));
+        }
+
+        @Override
+        public Type getType(JClassLoader loader, String typeName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Type getType(String typeName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ClassType getClassType(JClassLoader loader, String className) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ClassType getClassType(String className) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ArrayType getArrayType(Type baseType, int dimensions) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ClassType getBoxedType(PrimitiveType type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PrimitiveType getUnboxedType(ClassType type) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class TestPointer extends Pointer {
+
+        private final Type type;
+
+        private TestPointer(Type type) {
+            this.type = type;
+        }
+
+        @Override
+        Type getType() {
+            return type;
+        }
+    }
+
+    private static final JClassLoader LOADER = new JClassLoader() {
+
+        @Override
+        public JClass loadClass(String name) {
+            return null;
+        }
+
+        @Override
+        public Collection<JClass> getLoadedClasses() {
+            return List.of();
+        }
+    };
+
+    private final ClassType a = new ClassType(LOADER, "A");
+
+    private final ClassType b = new ClassType(LOADER, "B");
+
+    private final ClassType c = new ClassType(LOADER, "C");
+
+    private final TestTypeSystem typeSystem =
+            new TestTypeSystem(Map.of(b, a, c, a));
+
+    private final TypeFilter filter = new TypeFilter(typeSystem);
+
+    private final ObjIndexer indexer = new ObjIndexer();
+
+    private final Obj oa = new MockObj("oa", "oa", a);
+
+    private final Obj ob1 = new MockObj("ob1", "ob1", b);
+
+    private final Obj ob2 = new MockObj("ob2", "ob2", b);
+
+    private final Obj oc = new MockObj("oc", "oc", c);
+
+    private PointsToSet ptsOf(Obj... objs) {
+        PointsToSet pts = new PointsToSet(indexer);
+        for (Obj obj : objs) {
+            pts.addObject(obj);
+        }
+        return pts;
+    }
+
+    @Test
+    public void testDropUnassignableObjects() {
+        PointsToSet pts = ptsOf(oa, ob1, ob2, oc);
+        Assert.assertEquals(Set.of(ob1, ob2),
+                filter.filter(new TestPointer(b), pts).getObjects());
+        Assert.assertEquals(Set.of(oc),
+                filter.filter(new TestPointer(c), pts).getObjects());
+        Assert.assertSame(pts, filter.filter(new TestPointer(a), pts));
+    }
+
+    @Test
+    public void testUnfilteredTypes() {
+        PointsToSet pts = ptsOf(oa, ob1);
+        Assert.assertSame(pts, filter.filter(new TestPointer(null), pts));
+        Assert.assertEquals(0, typeSystem.checks);
+    }
+
+    @Test
+    public void testCacheSubtypeChecks() {
+        PointsToSet pts = ptsOf(oa, ob1, ob2, oc);
+        filter.filter(new TestPointer(b), pts);
+        // one check per object type
+        Assert.assertEquals(3, typeSystem.checks);
+        filter.filter(new TestPointer(b), ptsOf(ob1, oc));
+        Assert.assertEquals(3, typeSystem.checks);
+        filter.filter(new TestPointer(c), pts);
+        Assert.assertEquals(6, typeSystem.checks);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class VarSubstitutionTest {
+
+    private final List<Var> vars = new ArrayList<>();
+
+    private Var var(String name) {
+        Var var = new Var(null, name, null, vars.size());
+        vars.add(var);
+        return var;
+    }
+
+    /**
+     * @return variable substitution over the IR which has the given
+     * parameter and statements.
+     */
+    private VarSubstitution substitution(Var param, Stmt... stmts) {
+        IR ir = new DefaultIR(null, null, List.of(param), Set.of(),
+                vars, List.of(stmts), List.of());
+        return new VarSubstitution(method -> ir);
+    }
+
+    @Test
+    public void testCopyChain() {
+        Var p = var("p");
+        Var x = var("x");
+        Var y = var("y");
+        Var z = var("z");
+        // x = p; y = x; z = y;
+        VarSubstitution vs = substitution(p,
+                new Copy(x, p), new Copy(y, x), new Copy(z, y));
+        Assert.assertSame(p, vs.getRepresentative(p));
+        Assert.assertSame(p, vs.getRepresentative(x));
+        Assert.assertSame(p, vs.getRepresentative(y));
+        Assert.assertSame(p, vs.getRepresentative(z));
+        Assert.assertEquals(Set.of(p, x, y, z), vs.getVarsOf(p));
+    }
+
+    @Test
+    public void testMultipleDefinitions() {
+        Var p = var("p");
+        Var q = var("q");
+        Var x = var("x");
+        Var y = var("y");
+        // q = p; x = p; x = q; y = x;
+        VarSubstitution vs = substitution(p,
+                new Copy(q, p), new Copy(x, p), new Copy(x, q), new Copy(y, x));
+        Assert.assertSame(p, vs.getRepresentative(q));
+        Assert.assertSame(x, vs.getRepresentative(x));
+        Assert.assertSame(x, vs.getRepresentative(y));
+        Assert.assertEquals(Set.of(p, q), vs.getVarsOf(p));
+        Assert.assertEquals(Set.of(x, y), vs.getVarsOf(x));
+    }
+
+    @Test
+    public void testFieldLoad() {
+        Var p = var("p");
+        Var x = var("x");
+        Var y = var("y");
+        // x = p.f; y = x;
+        FieldRef f = FieldRef.get(null, "f", null, false);
+        VarSubstitution vs = substitution(p,
+                new LoadField(x, new InstanceFieldAccess(f, p)), new Copy(y, x));
+        Assert.assertSame(p, vs.getRepresentative(p));
+        Assert.assertSame(x, vs.getRepresentative(x));
+        Assert.assertSame(x, vs.getRepresentative(y));
+        Assert.assertEquals(Set.of(p), vs.getVarsOf(p));
+    }
+
+    @Test
+    public void testCopyCycle() {
+        Var p = var("p");
+        Var x = var("x");
+        Var y = var("y");
+        // x = y; y = x;
+        VarSubstitution vs = substitution(p, new Copy(x, y), new Copy(y, x));
+        Assert.assertNotSame(vs.getRepresentative(x), p);
+        Assert.assertSame(vs.getRepresentative(x), vs.getRepresentative(y));
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class WorkListTest {
+
+    private static class TestPointer extends Pointer {
+
+        @Override
+        Type getType() {
+            return null;
+        }
+    }
+
+    private final ObjIndexer indexer = new ObjIndexer();
+
+    private final Obj o1 = new MockObj("o1", "o1", null);
+
+    private final Obj o2 = new MockObj("o2", "o2", null);
+
+    private final Obj o3 = new MockObj("o3", "o3", null);
+
+    private PointsToSet ptsOf(Obj... objs) {
+        PointsToSet pts = new PointsToSet(indexer);
+        for (Obj obj : objs) {
+            pts.addObject(obj);
+        }
+        return pts;
+    }
+
+    @Test
+    public void testCoalesceEntriesOfSamePointer() {
+        WorkList workList = new WorkList();
+        Pointer p = new TestPointer();
+        Pointer q = new TestPointer();
+        PointsToSet first = ptsOf(o1);
+        workList.addEntry(p, first);
+        workList.addEntry(q, ptsOf(o3));
+        workList.addEntry(p, ptsOf(o2));
+        workList.addEntry(p, ptsOf(o1));
+        WorkList.Entry entry = workList.pollEntry();
+        Assert.assertSame(p, entry.pointer());
+        Assert.assertEquals(Set.of(o1, o2), entry.pointsToSet().getObjects());
+        // the set given by the first insertion is not modified
+        Assert.assertEquals(Set.of(o1), first.getObjects());
+        entry = workList.pollEntry();
+        Assert.assertSame(q, entry.pointer());
+        Assert.assertTrue(workList.isEmpty());
+        Assert.assertNull(workList.pollEntry());
+    }
+
+    @Test
+    public void testIgnoreEmptySets() {
+        WorkList workList = new WorkList();
+        workList.addEntry(new TestPointer(), ptsOf());
+        Assert.assertTrue(workList.isEmpty());
+    }
+
+    @Test
+    public void testCoalesceIntoRepresentative() {
+        WorkList workList = new WorkList();
+        Pointer rep = new TestPointer();
+        Pointer member = new TestPointer();
+        workList.addEntry(member, ptsOf(o1));
+        member.setRepresentative(rep);
+        workList.addEntry(rep, ptsOf(o2));
+        WorkList.Entry entry = workList.pollEntry();
+        Assert.assertSame(rep, entry.pointer());
+        Assert.assertEquals(Set.of(o1), entry.pointsToSet().getObjects());
+        entry = workList.pollEntry();
+        Assert.assertSame(rep, entry.pointer());
+        Assert.assertEquals(Set.of(o2), entry.pointsToSet().getObjects());
+        Assert.assertTrue(workList.isEmpty());
+        workList.addEntry(member, ptsOf(o1));
+        workList.addEntry(rep, ptsOf(o3));
+        entry = workList.pollEntry();
+        Assert.assertSame(rep, entry.pointer());
+        Assert.assertEquals(Set.of(o1, o3), entry.pointsToSet().getObjects());
+        Assert.assertTrue(workList.isEmpty());
+    }
+
+    @Test
+    public void testDrainConcurrently() {
+        // entries of a binary tree of pointers, processing the entry
+        // of a node adds the entries of its children
+        int n = 1023;
+        List<Pointer> pointers = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            Pointer p = new TestPointer();
+            p.setPointsToSet(new ConcurrentPointsToSet(indexer));
+            pointers.add(p);
+        }
+        ConcurrentWorkList workList = new ConcurrentWorkList(null);
+        workList.addEntry(pointers.get(0), ptsOf(o1, o2));
+        workList.drain(4, entry -> {
+            PointsToSet diff = entry.pointer().getPointsToSet()
+                    .addAllDiff(entry.pointsToSet());
+            int i = pointers.indexOf(entry.pointer());
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < n; ++child) {
+                workList.addEntry(pointers.get(child), diff);
+            }
+        });
+        Assert.assertTrue(workList.isEmpty());
+        for (Pointer p : pointers) {
+            Assert.assertEquals(Set.of(o1, o2), p.getPointsToSet().getObjects());
+        }
+    }
+
+    @Test
+    public void testDrainReAddedEntry() {
+        // processing the entry of p re-adds p with the next object,
+        // so that all workers race on a single entry
+        int n = 200;
+        List<Obj> objs = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            objs.add(new MockObj("o" + i, "o" + i, null));
+        }
+        Pointer p = new TestPointer();
+        p.setPointsToSet(new ConcurrentPointsToSet(indexer));
+        ConcurrentWorkList workList = new ConcurrentWorkList(null);
+        workList.addEntry(p, ptsOf(objs.get(0)));
+        workList.drain(4, entry -> {
+            PointsToSet diff = entry.pointer().getPointsToSet()
+                    .addAllDiff(entry.pointsToSet());
+            diff.forEach(obj -> {
+                int next = objs.indexOf(obj) + 1;
+                if (next < n) {
+                    workList.addEntry(p, ptsOf(objs.get(next)));
+                }
+            });
+        });
+        Assert.assertTrue(workList.isEmpty());
+        Assert.assertEquals(Set.copyOf(objs), p.getPointsToSet().getObjects());
+    }
+
+    @Test
+    public void testDrainFailure() {
+        ConcurrentWorkList workList = new ConcurrentWorkList(null);
+        workList.addEntry(new TestPointer(), ptsOf(o1));
+        try {
+            workList.drain(2, entry -> {
+                throw new IllegalStateException();
+            });
+            Assert.fail("expected AnalysisException");
+        } catch (AnalysisException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
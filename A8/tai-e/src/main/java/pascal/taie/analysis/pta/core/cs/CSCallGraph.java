@@ -31,10 +31,14 @@ import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -45,6 +49,16 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     private final CSManager csManager;
 
+    /**
+     * Invokes in each method, shared by all contexts of the method.
+     */
+    private final Map<JMethod, List<Invoke>> invokes = Maps.newMap();
+
+    /**
+     * Number of edges in this call graph.
+     */
+    private int numberOfEdges = 0;
+
     public CSCallGraph(CSManager csManager) {
         this.csManager = csManager;
     }
@@ -64,8 +78,12 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      */
     public boolean addReachableMethod(CSMethod csMethod) {
         if (reachableMethods.add(csMethod)) {
-            callSitesIn(csMethod).forEach(csCallSite ->
-                    csCallSite.setContainer(csMethod));
+            Context context = csMethod.getContext();
+            for (Invoke invoke : getInvokesIn(csMethod.getMethod())) {
+                CSCallSite csCallSite = csManager.getCSCallSite(context, invoke);
+                csCallSite.setContainer(csMethod);
+                callSitesIn.put(csMethod, csCallSite);
+            }
             return true;
         } else {
             return false;
@@ -82,6 +100,7 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
     public boolean addEdge(Edge<CSCallSite, CSMethod> edge) {
         if (edge.getCallSite().addEdge(edge)) {
             edge.getCallee().addEdge(edge);
+            ++numberOfEdges;
             return true;
         } else {
             return false;
@@ -103,20 +122,39 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
         return csCallSite.getContainer();
     }
 
+    /**
+     * @return the call sites in given method. The call sites of reachable
+     * methods are cached when the methods are added to this call graph.
+     */
     @Override
     public Set<CSCallSite> getCallSitesIn(CSMethod csMethod) {
-        JMethod method = csMethod.getMethod();
+        if (reachableMethods.contains(csMethod)) {
+            return Collections.unmodifiableSet(callSitesIn.get(csMethod));
+        }
         Context context = csMethod.getContext();
         Set<CSCallSite> callSites = Sets.newHybridOrderedSet();
-        for (Stmt s : method.getIR()) {
-            if (s instanceof Invoke) {
-                CSCallSite csCallSite = csManager.getCSCallSite(context, (Invoke) s);
-                callSites.add(csCallSite);
-            }
+        for (Invoke invoke : getInvokesIn(csMethod.getMethod())) {
+            callSites.add(csManager.getCSCallSite(context, invoke));
         }
         return Collections.unmodifiableSet(callSites);
     }
 
+    /**
+     * @return the invokes in given method, which are computed by
+     * scanning the IR of the method only once.
+     */
+    private List<Invoke> getInvokesIn(JMethod method) {
+        return invokes.computeIfAbsent(method, m -> {
+            List<Invoke> result = new ArrayList<>();
+            for (Stmt s : m.getIR()) {
+                if (s instanceof Invoke invoke) {
+                    result.add(invoke);
+                }
+            }
+            return result.isEmpty() ? List.of() : result;
+        });
+    }
+
     @Override
     public Stream<Edge<CSCallSite, CSMethod>> edgesOutOf(CSCallSite csCallSite) {
         return csCallSite.getEdges().stream();
@@ -134,6 +172,11 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
                 .flatMap(this::edgesOutOf);
     }
 
+    @Override
+    public int getNumberOfEdges() {
+        return numberOfEdges;
+    }
+
     @Override
     public boolean isRelevant(Stmt stmt) {
         throw new UnsupportedOperationException();
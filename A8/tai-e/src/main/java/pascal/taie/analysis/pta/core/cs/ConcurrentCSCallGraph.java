@@ -0,0 +1,72 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs;
+
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+
+import java.util.Set;
+
+/**
+ * Context-sensitive call graph which can be modified by multiple threads.
+ * Modifications (including the edge sets of {@link CSCallSite}s and
+ * {@link CSMethod}s) are guarded by the lock of the call graph.
+ */
+public class ConcurrentCSCallGraph extends CSCallGraph {
+
+    public ConcurrentCSCallGraph(CSManager csManager) {
+        super(csManager);
+    }
+
+    @Override
+    public synchronized void addEntryMethod(CSMethod entryMethod) {
+        super.addEntryMethod(entryMethod);
+    }
+
+    @Override
+    public synchronized boolean addReachableMethod(CSMethod csMethod) {
+        return super.addReachableMethod(csMethod);
+    }
+
+    @Override
+    public synchronized boolean addEdge(Edge<CSCallSite, CSMethod> edge) {
+        return super.addEdge(edge);
+    }
+
+    @Override
+    public synchronized Set<CSCallSite> getCallSitesIn(CSMethod csMethod) {
+        return super.getCallSitesIn(csMethod);
+    }
+
+    @Override
+    public synchronized boolean contains(CSMethod csMethod) {
+        return super.contains(csMethod);
+    }
+
+    @Override
+    public synchronized int getNumberOfEdges() {
+        return super.getNumberOfEdges();
+    }
+}
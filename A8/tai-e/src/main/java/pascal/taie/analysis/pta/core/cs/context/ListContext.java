@@ -22,80 +22,227 @@
 
 package pascal.taie.analysis.pta.core.cs.context;
 
+import pascal.taie.World;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * List-based contexts. Each context is represented by a list of context elements.
+ * <p>
+ * Contexts are interned in a trie: each context is the child of the context
+ * consisting of all but its last element, and the same trie always returns
+ * the same object for the same list of elements. Hence contexts of a trie
+ * can be compared by identity, and each of them carries an id which is
+ * unique in the trie.
+ * <p>
+ * A trie is rooted at an empty context. Context selectors create their own
+ * trie by {@link #newEmptyContext()}, so that the contexts are released
+ * together with the analysis. {@link #make} uses a trie which is shared
+ * in the current {@link World}, and is discarded when the world is reset.
  *
  * @param <T> type of context elements
  */
 public class ListContext<T> implements Context {
 
     /**
-     * The empty context.
+     * The trie used by {@link #make}.
      */
-    private static final ListContext<?> EMPTY_CONTEXT = new ListContext<>(List.of());
+    private static ListContext<?> defaultRoot = newRoot();
+
+    static {
+        World.registerResetCallback(() -> defaultRoot = newRoot());
+    }
+
+    /**
+     * The trie that contains this context.
+     */
+    private final Trie trie;
+
+    /**
+     * The context that consists of all but the last element of this context.
+     */
+    private final ListContext<T> parent;
+
+    /**
+     * The context that consists of all but the first element of this context,
+     * which makes k-limiting append O(1). It is this context itself
+     * if this context is empty.
+     */
+    private final ListContext<T> tail;
+
+    /**
+     * Elements in the context.
+     */
+    private final Object[] elements;
 
     /**
-     * List of elements in the context.
+     * Unique id of this context in its trie.
      */
-    private final List<T> elements;
+    private final int id;
 
-    private ListContext(List<T> elements) {
+    private ListContext(Trie trie, ListContext<T> parent,
+                        ListContext<T> tail, Object[] elements) {
+        this.trie = trie;
+        this.parent = parent;
+        this.tail = tail != null ? tail : this;
         this.elements = elements;
+        this.id = trie.counter.getAndIncrement();
+    }
+
+    private static ListContext<?> newRoot() {
+        return new ListContext<>(new Trie(), null, null, new Object[0]);
+    }
+
+    /**
+     * @return the empty context of a new trie. The contexts derived from
+     * it by {@link #append} and {@link #truncate} belong to the new trie.
+     */
+    public static Context newEmptyContext() {
+        return newRoot();
     }
 
     /**
      * @return an empty context.
      */
     public static Context make() {
-        return EMPTY_CONTEXT;
+        return defaultRoot;
     }
 
     /**
      * @return a context that consists of given context elements.
      */
     @SafeVarargs
+    @SuppressWarnings("unchecked")
     public static <T> Context make(T... elements) {
-        return elements.length == 0 ?
-                EMPTY_CONTEXT : new ListContext<>(List.of(elements));
+        ListContext<T> context = (ListContext<T>) defaultRoot;
+        for (T elem : elements) {
+            context = context.getChild(elem);
+        }
+        return context;
+    }
+
+    /**
+     * Appends an element to a context and keeps at most {@code limit}
+     * elements at the end of the result, i.e., the outermost elements
+     * are dropped. This is the k-limiting operation used by context
+     * selectors. It costs O(1) trie lookups when the context has
+     * at most {@code limit} elements.
+     *
+     * @return the canonical context for the appended elements,
+     * in the trie of given context.
+     */
+    @SuppressWarnings("unchecked")
+    public static Context append(Context context, Object elem, int limit) {
+        ListContext<Object> result = (ListContext<Object>) truncate(
+                context, Math.max(limit - 1, 0));
+        return limit > 0 ? result.getChild(elem) : result;
+    }
+
+    /**
+     * @return the canonical context consisting of the last {@code limit}
+     * elements of given context, in the trie of given context.
+     * If given context is not a {@link ListContext}, it is interned
+     * in the trie used by {@link #make}.
+     */
+    @SuppressWarnings("unchecked")
+    public static Context truncate(Context context, int limit) {
+        if (context instanceof ListContext<?> listContext) {
+            ListContext<Object> result = (ListContext<Object>) listContext;
+            for (int i = result.getLength(); i > limit; --i) {
+                result = result.tail;
+            }
+            return result;
+        }
+        int length = context.getLength();
+        ListContext<Object> result = (ListContext<Object>) defaultRoot;
+        for (int i = Math.max(0, length - limit); i < length; ++i) {
+            result = result.getChild(context.getElementAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * @return the id of this context, which is unique in its trie.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the context that consists of all but the last element of
+     * this context, or {@code null} if this context is empty.
+     */
+    public ListContext<T> getParent() {
+        return parent;
+    }
+
+    private ListContext<T> getChild(Object elem) {
+        Trie.Key key = new Trie.Key(this, elem);
+        @SuppressWarnings("unchecked")
+        ListContext<T> child = (ListContext<T>) trie.nodes.get(key);
+        if (child == null) {
+            // the tail of a child of the empty context is the empty context
+            ListContext<T> childTail = parent != null ?
+                    tail.getChild(elem) : this;
+            Object[] elems = Arrays.copyOf(elements, elements.length + 1);
+            elems[elements.length] = elem;
+            ListContext<T> newChild = new ListContext<>(
+                    trie, this, childTail, elems);
+            @SuppressWarnings("unchecked")
+            ListContext<T> prev = (ListContext<T>) trie.nodes.putIfAbsent(key, newChild);
+            child = prev != null ? prev : newChild;
+        }
+        return child;
     }
 
     @Override
     public int getLength() {
-        return elements.size();
+        return elements.length;
     }
 
     @Override
     public Object getElementAt(int i) {
-        if (i >= elements.size()) {
+        if (i >= elements.length) {
             throw new AnalysisException(
                     "Context " + this + " doesn't have " + i + "-th element");
         }
-        return elements.get(i);
+        return elements[i];
     }
 
     @Override
     public boolean equals(Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (o == null || getClass() != o.getClass()) {
-            return false;
-        }
-        ListContext<?> that = (ListContext<?>) o;
-        return elements.equals(that.elements);
+        return this == o;
     }
 
     @Override
     public int hashCode() {
-        return elements.hashCode();
+        return id;
     }
 
     @Override
     public String toString() {
-        return elements.toString();
+        return Arrays.toString(elements);
+    }
+
+    /**
+     * Nodes of a trie, which are kept in one map per trie
+     * instead of one map per node.
+     */
+    private static class Trie {
+
+        private final ConcurrentMap<Key, ListContext<?>> nodes =
+                Maps.newConcurrentMap();
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        /**
+         * Key of a node, i.e., its parent and its last element.
+         */
+        private record Key(ListContext<?> parent, Object elem) {
+        }
     }
 }
@@ -24,6 +24,11 @@ package pascal.taie.analysis.pta.core.cs.element;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JField;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Represents context-sensitive objects.
@@ -32,6 +37,22 @@ public class CSObj extends AbstractCSElement {
 
     private final Obj obj;
 
+    /**
+     * Dense index of this object, assigned by {@link IndexedCSManager}.
+     */
+    private int index = -1;
+
+    /**
+     * Instance field pointers of this object, created on demand.
+     * Used by {@link IndexedCSManager}.
+     */
+    private Map<JField, InstanceField> instanceFields;
+
+    /**
+     * Array index pointer of this object, used by {@link IndexedCSManager}.
+     */
+    private ArrayIndex arrayIndex;
+
     CSObj(Obj obj, Context context) {
         super(context);
         this.obj = obj;
@@ -44,6 +65,33 @@ public class CSObj extends AbstractCSElement {
         return obj;
     }
 
+    /**
+     * @return the dense index of this object, or -1 if the object was not
+     * created by an {@link IndexedCSManager}.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    InstanceField getInstanceField(
+            JField field, Function<JField, InstanceField> factory) {
+        if (instanceFields == null) {
+            instanceFields = Maps.newHybridMap();
+        }
+        return instanceFields.computeIfAbsent(field, factory);
+    }
+
+    ArrayIndex getArrayIndex(Function<CSObj, ArrayIndex> factory) {
+        if (arrayIndex == null) {
+            arrayIndex = factory.apply(this);
+        }
+        return arrayIndex;
+    }
+
     @Override
     public String toString() {
         return context + ":" + obj;
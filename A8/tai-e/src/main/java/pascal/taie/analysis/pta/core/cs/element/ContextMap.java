@@ -0,0 +1,159 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Small map from contexts to context-sensitive elements of one program
+ * element (variable, object, call site or method).
+ * <p>
+ * The first empty context is stored in a dedicated slot. Other interned
+ * {@link ListContext}s are stored in an open-addressing table, which
+ * hashes them by their ids and compares them by identity, and any other
+ * kind of contexts falls back to a hash map.
+ *
+ * @param <E> type of context-sensitive elements
+ */
+class ContextMap<E> {
+
+    private static final int INIT_CAPACITY = 4;
+
+    private Context emptyKey;
+
+    private E emptyValue;
+
+    private ListContext<?>[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    private Map<Context, E> others;
+
+    /**
+     * Elements in the order they were created.
+     */
+    private final List<E> elements = new ArrayList<>(2);
+
+    E get(Context context, Function<Context, E> factory) {
+        if (context == emptyKey) {
+            return emptyValue;
+        }
+        if (emptyKey == null && context.getLength() == 0) {
+            emptyKey = context;
+            emptyValue = add(factory.apply(context));
+            return emptyValue;
+        }
+        if (!(context instanceof ListContext<?> listContext)) {
+            if (others == null) {
+                others = Maps.newHybridMap();
+            }
+            return others.computeIfAbsent(context, c -> add(factory.apply(c)));
+        }
+        if (keys == null) {
+            keys = new ListContext<?>[INIT_CAPACITY];
+            values = new Object[INIT_CAPACITY];
+        }
+        int i = lookup(keys, listContext);
+        @SuppressWarnings("unchecked")
+        E value = (E) values[i];
+        if (value == null) {
+            value = add(factory.apply(context));
+            keys[i] = listContext;
+            values[i] = value;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return the slot of given context, or the empty slot where it should go.
+     */
+    private static int lookup(ListContext<?>[] keys, ListContext<?> context) {
+        int mask = keys.length - 1;
+        int i = mix(context.getId()) & mask;
+        while (keys[i] != null && keys[i] != context) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void resize() {
+        ListContext<?>[] newKeys = new ListContext<?>[keys.length * 2];
+        Object[] newValues = new Object[values.length * 2];
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != null) {
+                int j = lookup(newKeys, keys[i]);
+                newKeys[j] = keys[i];
+                newValues[j] = values[i];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private E add(E value) {
+        elements.add(value);
+        return value;
+    }
+
+    /**
+     * @return all elements in this map.
+     */
+    Collection<E> values() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * Context map which can be accessed by multiple threads.
+     */
+    static class Synchronized<E> extends ContextMap<E> {
+
+        @Override
+        synchronized E get(Context context, Function<Context, E> factory) {
+            return super.get(context, factory);
+        }
+
+        @Override
+        synchronized Collection<E> values() {
+            return List.copyOf(super.values());
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * {@link CSManager} that avoids hashing contexts.
+ * <p>
+ * Each variable, object, call site and method owns a {@link ContextMap}
+ * hashed by context ids, with a fast path for the empty context.
+ * Field and array-index pointers are stored directly in their base
+ * {@link CSObj}, and all pointers are also kept in dense lists, which
+ * back the collection views. The position of each {@link CSObj} in its
+ * list is its {@link CSObj#getIndex() index}.
+ * <p>
+ * In concurrent mode, the manager can be accessed by multiple threads.
+ * The collection views should be read after the analysis finishes.
+ */
+public class IndexedCSManager implements CSManager {
+
+    private final boolean concurrent;
+
+    private final PointsToSetFactory ptsFactory;
+
+    private final Map<Var, ContextMap<CSVar>> vars;
+
+    private final Map<Obj, ContextMap<CSObj>> objs;
+
+    private final Map<Invoke, ContextMap<CSCallSite>> callSites;
+
+    private final Map<JMethod, ContextMap<CSMethod>> methods;
+
+    private final Map<JField, StaticField> staticFields;
+
+    private final List<CSVar> csVars;
+
+    /**
+     * Objects indexed by their indexes. The array is replaced (not
+     * modified in place) when it grows, so that {@link #getObject(int)}
+     * can read it without locking.
+     */
+    private volatile CSObj[] csObjs = new CSObj[1024];
+
+    private int objCount = 0;
+
+    private final List<InstanceField> instanceFields;
+
+    private final List<ArrayIndex> arrayIndexes;
+
+    public IndexedCSManager() {
+        this(false);
+    }
+
+    /**
+     * @param concurrent whether this manager can be accessed
+     *                   by multiple threads.
+     */
+    public IndexedCSManager(boolean concurrent) {
+        this(concurrent, "hybrid");
+    }
+
+    /**
+     * @param concurrent whether this manager can be accessed
+     *                   by multiple threads.
+     * @param ptsKind    kind of the points-to sets of the pointers,
+     *                   see {@link PointsToSetFactory#of}.
+     */
+    public IndexedCSManager(boolean concurrent, String ptsKind) {
+        this.concurrent = concurrent;
+        this.ptsFactory = PointsToSetFactory.of(ptsKind, this, concurrent);
+        vars = newMap(4096);
+        objs = newMap(1024);
+        callSites = newMap(1024);
+        methods = newMap(1024);
+        staticFields = newMap(16);
+        csVars = newList();
+        instanceFields = newList();
+        arrayIndexes = newList();
+    }
+
+    private <K, V> Map<K, V> newMap(int initialCapacity) {
+        return concurrent ? Maps.newConcurrentMap(initialCapacity)
+                : Maps.newMap(initialCapacity);
+    }
+
+    private <E> List<E> newList() {
+        return concurrent ? Collections.synchronizedList(new ArrayList<>())
+                : new ArrayList<>();
+    }
+
+    private <E> ContextMap<E> newContextMap() {
+        return concurrent ? new ContextMap.Synchronized<>() : new ContextMap<>();
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        return vars.computeIfAbsent(var, v -> newContextMap())
+                .get(context, c -> {
+                    CSVar csVar = initializePointsToSet(new CSVar(var, c));
+                    csVars.add(csVar);
+                    return csVar;
+                });
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        return objs.computeIfAbsent(obj, o -> newContextMap())
+                .get(heapContext, c -> addObject(new CSObj(obj, c)));
+    }
+
+    private synchronized CSObj addObject(CSObj csObj) {
+        CSObj[] array = csObjs;
+        if (objCount == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        csObj.setIndex(objCount);
+        array[objCount++] = csObj;
+        csObjs = array;
+        return csObj;
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        return callSites.computeIfAbsent(callSite, i -> newContextMap())
+                .get(context, c -> new CSCallSite(callSite, c));
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        return methods.computeIfAbsent(method, m -> newContextMap())
+                .get(context, c -> new CSMethod(method, c));
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return staticFields.computeIfAbsent(field,
+                f -> initializePointsToSet(new StaticField(f)));
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        return lock(base, () -> base.getInstanceField(field, f -> {
+            InstanceField instanceField =
+                    initializePointsToSet(new InstanceField(base, f));
+            instanceFields.add(instanceField);
+            return instanceField;
+        }));
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        return lock(array, () -> array.getArrayIndex(a -> {
+            ArrayIndex arrayIndex = initializePointsToSet(new ArrayIndex(a));
+            arrayIndexes.add(arrayIndex);
+            return arrayIndex;
+        }));
+    }
+
+    /**
+     * Runs given action while holding the lock of given object
+     * in concurrent mode.
+     */
+    private <R> R lock(CSObj csObj, Supplier<R> action) {
+        if (concurrent) {
+            synchronized (csObj) {
+                return action.get();
+            }
+        }
+        return action.get();
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(vars.keySet());
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        ContextMap<CSVar> map = vars.get(var);
+        return map != null ? map.values() : Collections.emptyList();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return Collections.unmodifiableList(csVars);
+    }
+
+    @Override
+    public synchronized Collection<CSObj> getObjects() {
+        return Collections.unmodifiableList(
+                Arrays.asList(csObjs).subList(0, objCount));
+    }
+
+    /**
+     * @return the object with given index.
+     */
+    public CSObj getObject(int index) {
+        return csObjs[index];
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableCollection(staticFields.values());
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return Collections.unmodifiableList(instanceFields);
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Collections.unmodifiableList(arrayIndexes);
+    }
+
+    /**
+     * @return the factory of the points-to sets of the pointers
+     * managed by this manager.
+     */
+    public PointsToSetFactory getPointsToSetFactory() {
+        return ptsFactory;
+    }
+
+    private <P extends Pointer> P initializePointsToSet(P pointer) {
+        pointer.setPointsToSet(ptsFactory.newPointsToSet());
+        return pointer;
+    }
+}
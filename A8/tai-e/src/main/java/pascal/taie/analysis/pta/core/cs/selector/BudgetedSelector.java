@@ -0,0 +1,242 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Context selector that enforces budgets on the contexts selected by
+ * a delegate selector.
+ * <p>
+ * When the number of contexts of a method, or the size of the points-to
+ * set of a variable in the method, exceeds its budget, the method is
+ * degraded: new contexts of the method are truncated to one element less
+ * than before, down to the empty context. The heap contexts of the objects
+ * allocated in a method limited to k elements are truncated to k-1 elements,
+ * following the usual k-limiting in which heap contexts are one element
+ * shorter than method contexts. When the used heap exceeds its budget,
+ * all new contexts are empty, i.e., the rest of the analysis is
+ * context-insensitive. A non-positive budget means no limit.
+ * <p>
+ * This selector is thread-safe.
+ */
+public class BudgetedSelector implements ContextSelector {
+
+    private static final Logger logger = LogManager.getLogger(BudgetedSelector.class);
+
+    /**
+     * Number of context selections between two checks of the heap.
+     */
+    private static final int HEAP_CHECK_INTERVAL = 10000;
+
+    private final ContextSelector delegate;
+
+    private final int contextBudget;
+
+    private final int ptsBudget;
+
+    private final long heapBudget;
+
+    private final Map<JMethod, MethodBudget> budgets = Maps.newConcurrentMap();
+
+    /**
+     * Number of context selections. In parallel analysis, updates may be
+     * lost, which only delays the next check of the heap.
+     */
+    private int selections = 0;
+
+    private volatile boolean heapExceeded = false;
+
+    /**
+     * @param delegate      the selector whose contexts are limited.
+     * @param contextBudget maximum number of contexts of each method.
+     * @param ptsBudget     maximum size of points-to set of each
+     *                      context-sensitive variable.
+     * @param heapBudget    maximum used heap in bytes.
+     */
+    public BudgetedSelector(ContextSelector delegate,
+                            int contextBudget, int ptsBudget, long heapBudget) {
+        this.delegate = delegate;
+        this.contextBudget = contextBudget;
+        this.ptsBudget = ptsBudget;
+        this.heapBudget = heapBudget;
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return delegate.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        return limit(callee, delegate.selectContext(callSite, callee));
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        return limit(callee, delegate.selectContext(callSite, recv, callee));
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        if (heapExceeded) {
+            return getEmptyContext();
+        }
+        Context context = delegate.selectHeapContext(method, obj);
+        MethodBudget budget = budgets.get(method.getMethod());
+        if (budget != null) {
+            synchronized (budget) {
+                if (budget.isDegraded()) {
+                    // heap contexts are one element shorter than method contexts
+                    context = ListContext.truncate(context,
+                            Math.max(0, budget.limit - 1));
+                }
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Checks the points-to set of given variable against the budget,
+     * and degrades the method containing the variable if the points-to
+     * set is too large. The solver should call this method after
+     * propagating new objects to a variable.
+     */
+    public void checkPointsToSize(CSVar csVar) {
+        if (ptsBudget > 0 && csVar.getPointsToSet().size() > ptsBudget) {
+            JMethod method = csVar.getVar().getMethod();
+            MethodBudget budget = getBudget(method);
+            int length = csVar.getContext().getLength();
+            synchronized (budget) {
+                if (length > 0 && length <= budget.limit) {
+                    degrade(method, budget, length);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the degraded methods, mapped to their current context limits.
+     */
+    public Map<JMethod, Integer> getDegradedMethods() {
+        Map<JMethod, Integer> result = Maps.newMap();
+        budgets.forEach((method, budget) -> {
+            synchronized (budget) {
+                if (budget.isDegraded()) {
+                    result.put(method, budget.limit);
+                }
+            }
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * @return true if the heap budget has been exceeded.
+     */
+    public boolean isHeapExceeded() {
+        return heapExceeded;
+    }
+
+    private Context limit(JMethod method, Context context) {
+        checkHeap();
+        if (heapExceeded) {
+            return getEmptyContext();
+        }
+        MethodBudget budget = getBudget(method);
+        synchronized (budget) {
+            if (context.getLength() > budget.limit) {
+                context = ListContext.truncate(context, budget.limit);
+            }
+            if (contextBudget > 0 && budget.contexts.add(context)
+                    && budget.contexts.size() > contextBudget
+                    && context.getLength() > 0) {
+                degrade(method, budget, context.getLength());
+                context = ListContext.truncate(context, budget.limit);
+            }
+        }
+        return context;
+    }
+
+    private MethodBudget getBudget(JMethod method) {
+        return budgets.computeIfAbsent(method, m -> new MethodBudget());
+    }
+
+    /**
+     * Limits the contexts of given method to one element less than
+     * {@code length}. Contexts are counted again from scratch.
+     */
+    private static void degrade(JMethod method, MethodBudget budget, int length) {
+        budget.limit = Math.min(budget.limit, length) - 1;
+        budget.contexts.clear();
+        logger.debug("Degraded {} to {}-limited contexts", method, budget.limit);
+    }
+
+    private void checkHeap() {
+        if (heapBudget > 0 && !heapExceeded
+                && ++selections % HEAP_CHECK_INTERVAL == 0) {
+            Runtime runtime = Runtime.getRuntime();
+            long used = runtime.totalMemory() - runtime.freeMemory();
+            if (used > heapBudget) {
+                heapExceeded = true;
+                logger.warn("Used heap ({} MB) exceeds the budget ({} MB)," +
+                                " analyzing the rest context-insensitively",
+                        used >> 20, heapBudget >> 20);
+            }
+        }
+    }
+
+    /**
+     * Budget state of a method.
+     */
+    private static class MethodBudget {
+
+        /**
+         * Maximum length of new contexts of the method.
+         */
+        private int limit = Integer.MAX_VALUE;
+
+        /**
+         * Contexts selected since the last degradation.
+         */
+        private final Set<Context> contexts = Sets.newHybridSet();
+
+        private boolean isDegraded() {
+            return limit != Integer.MAX_VALUE;
+        }
+    }
+}
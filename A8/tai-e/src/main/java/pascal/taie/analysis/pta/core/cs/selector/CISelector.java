@@ -35,9 +35,26 @@ import pascal.taie.language.classes.JMethod;
  */
 public class CISelector implements ContextSelector {
 
+    /**
+     * The empty context, i.e., the root of the trie of the selected contexts.
+     */
+    private final Context emptyContext;
+
+    public CISelector() {
+        this(ListContext.newEmptyContext());
+    }
+
+    /**
+     * @param emptyContext the empty context of the trie shared with
+     *                     other selectors of the same analysis.
+     */
+    public CISelector(Context emptyContext) {
+        this.emptyContext = emptyContext;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return emptyContext;
     }
 
     @Override
@@ -0,0 +1,101 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of selective context sensitivity. Each selected method
+ * (and the objects allocated in it) is analyzed with the contexts selected
+ * by its own selector, e.g., the variant chosen for it by Scaler, and all
+ * other methods are analyzed context-insensitively, as by {@link CISelector}.
+ * The selectors should share the trie of the empty context of this selector,
+ * see {@link pascal.taie.analysis.pta.core.cs.context.ListContext}.
+ */
+public class SelectiveSelector implements ContextSelector {
+
+    private final Context emptyContext;
+
+    private final Map<JMethod, ContextSelector> selectors;
+
+    /**
+     * @param delegate  the selector for the context-sensitive methods.
+     * @param csMethods the methods to be analyzed context-sensitively.
+     */
+    public SelectiveSelector(ContextSelector delegate, Set<JMethod> csMethods) {
+        this(delegate.getEmptyContext(), csMethods.stream()
+                .collect(Collectors.toUnmodifiableMap(
+                        Function.identity(), m -> delegate)));
+    }
+
+    /**
+     * @param emptyContext the empty context, which is selected for
+     *                     the methods without selectors.
+     * @param selectors    the selectors of the methods to be analyzed
+     *                     context-sensitively.
+     */
+    public SelectiveSelector(Context emptyContext,
+                             Map<JMethod, ContextSelector> selectors) {
+        this.emptyContext = emptyContext;
+        this.selectors = selectors;
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return emptyContext;
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        ContextSelector selector = selectors.get(callee);
+        return selector != null ?
+                selector.selectContext(callSite, callee) :
+                getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        ContextSelector selector = selectors.get(callee);
+        return selector != null ?
+                selector.selectContext(callSite, recv, callee) :
+                getEmptyContext();
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        ContextSelector selector = selectors.get(method.getMethod());
+        return selector != null ?
+                selector.selectHeapContext(method, obj) :
+                getEmptyContext();
+    }
+}
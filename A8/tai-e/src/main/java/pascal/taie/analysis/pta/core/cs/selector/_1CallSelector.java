@@ -35,26 +35,41 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _1CallSelector implements ContextSelector {
 
+    /**
+     * The empty context, i.e., the root of the trie of the selected contexts.
+     */
+    private final Context emptyContext;
+
+    public _1CallSelector() {
+        this(ListContext.newEmptyContext());
+    }
+
+    /**
+     * @param emptyContext the empty context of the trie shared with
+     *                     other selectors of the same analysis.
+     */
+    public _1CallSelector(Context emptyContext) {
+        this.emptyContext = emptyContext;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return emptyContext;
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return ListContext.append(callSite.getContext(),
+                callSite.getCallSite(), 1);
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return selectContext(callSite, callee);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
-        // TODO - finish me
-        return null;
+        return getEmptyContext();
     }
 }
@@ -29,32 +29,48 @@ import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
 
 /**
  * Implementation of 1-type sensitivity.
  */
 public class _1TypeSelector implements ContextSelector {
 
+    /**
+     * The empty context, i.e., the root of the trie of the selected contexts.
+     */
+    private final Context emptyContext;
+
+    public _1TypeSelector() {
+        this(ListContext.newEmptyContext());
+    }
+
+    /**
+     * @param emptyContext the empty context of the trie shared with
+     *                     other selectors of the same analysis.
+     */
+    public _1TypeSelector(Context emptyContext) {
+        this.emptyContext = emptyContext;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return emptyContext;
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return callSite.getContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
-        // TODO - finish me
-        return null;
+        Type type = recv.getObject().getContainerType();
+        return ListContext.append(recv.getContext(), type, 1);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
-        // TODO - finish me
-        return null;
+        return getEmptyContext();
     }
 }
@@ -36,26 +36,41 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2CallSelector implements ContextSelector {
 
+    /**
+     * The empty context, i.e., the root of the trie of the selected contexts.
+     */
+    private final Context emptyContext;
+
+    public _2CallSelector() {
+        this(ListContext.newEmptyContext());
+    }
+
+    /**
+     * @param emptyContext the empty context of the trie shared with
+     *                     other selectors of the same analysis.
+     */
+    public _2CallSelector(Context emptyContext) {
+        this.emptyContext = emptyContext;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return emptyContext;
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
-        // TODO - finish me
-        return null;
+        Invoke invoke = callSite.getCallSite();
+        return ListContext.append(callSite.getContext(), invoke, 2);
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return selectContext(callSite, callee);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
-        // TODO - finish me
-        return null;
+        return ListContext.truncate(method.getContext(), 1);
     }
 }
@@ -22,19 +22,35 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.selector.BudgetedSelector;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.SelectiveSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.toolkit.scaler.Scaler;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.Strings;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
-import java.lang.reflect.Constructor;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Context-sensitive pointer analysis.
@@ -43,6 +59,8 @@ public class CSPTA extends ProgramAnalysis {
 
     public static final String ID = "cspta";
 
+    private static final Logger logger = LogManager.getLogger(CSPTA.class);
+
     public CSPTA(AnalysisConfig config) {
         super(config);
     }
@@ -50,18 +68,41 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
+        ContextSelector selector = getContextSelector(options.getString("cs"));
+        String csMethods = options.getString("cs-methods");
+        if (csMethods != null) {
+            selector = new SelectiveSelector(selector.getEmptyContext(),
+                    getCSSelectors(options, csMethods, selector));
+        }
+        BudgetedSelector budgeted = getBudgetedSelector(options, selector);
+        if (budgeted != null) {
+            selector = budgeted;
+        }
         Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
+                new AllocationSiteBasedModel(options), selector);
         solver.solve();
         PointerAnalysisResult result = solver.getResult();
+        if (budgeted != null) {
+            reportBudget(budgeted, result);
+        }
         ResultProcessor.process(options, result);
         return result;
     }
 
     private static ContextSelector getContextSelector(String cs) {
+        return getContextSelector(cs, null);
+    }
+
+    /**
+     * @param emptyContext the empty context of the context trie
+     *                     used by the selector, or null if the selector
+     *                     creates its own trie.
+     */
+    private static ContextSelector getContextSelector(
+            String cs, Context emptyContext) {
         if (cs.equals("ci")) {
-            return new CISelector();
+            return emptyContext != null ?
+                    new CISelector(emptyContext) : new CISelector();
         } else {
             try {
                 // we expect that the argument of context-sensitivity variant
@@ -73,8 +114,10 @@ public class CSPTA extends ProgramAnalysis {
                 String selectorName = "pascal.taie.analysis.pta.core.cs.selector." +
                         "_" + k + kind + "Selector";
                 Class<?> c = Class.forName(selectorName);
-                Constructor<?> ctor = c.getConstructor();
-                return (ContextSelector) ctor.newInstance();
+                return emptyContext != null ?
+                        (ContextSelector) c.getConstructor(Context.class)
+                                .newInstance(emptyContext) :
+                        (ContextSelector) c.getConstructor().newInstance();
             } catch (RuntimeException e) {
                 throw new ConfigException("Unexpected context-sensitivity variants: " + cs, e);
             } catch (ClassNotFoundException | NoSuchMethodException |
@@ -84,4 +127,99 @@ public class CSPTA extends ProgramAnalysis {
             }
         }
     }
+
+    /**
+     * @return a selector that enforces the budgets given in options
+     * on the given selector, or null if no budget is given.
+     */
+    private static BudgetedSelector getBudgetedSelector(
+            AnalysisOptions options, ContextSelector selector) {
+        Object contextBudget = options.get("context-budget");
+        Object ptsBudget = options.get("pts-budget");
+        Object heapBudget = options.get("heap-budget");
+        if (contextBudget == null && ptsBudget == null && heapBudget == null) {
+            return null;
+        }
+        // heap budget is given as a fraction of the maximum heap size
+        return new BudgetedSelector(selector,
+                contextBudget != null ? options.getInt("context-budget") : 0,
+                ptsBudget != null ? options.getInt("pts-budget") : 0,
+                heapBudget != null ? (long) (options.getFloat("heap-budget")
+                        * Runtime.getRuntime().maxMemory()) : 0);
+    }
+
+    private static void reportBudget(
+            BudgetedSelector budgeted, PointerAnalysisResult result) {
+        Map<JMethod, Integer> degraded = budgeted.getDegradedMethods();
+        if (budgeted.isHeapExceeded()) {
+            logger.info("Heap budget was exceeded");
+        }
+        logger.info("{} methods were degraded", degraded.size());
+        degraded.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey(
+                        Comparator.comparing(JMethod::toString)))
+                .forEach(e -> logger.info("  {}: {}", e.getKey(),
+                        e.getValue() == 0 ? "ci" : e.getValue() + "-limited"));
+        result.storeResult(BudgetedSelector.class.getName(), degraded);
+    }
+
+    /**
+     * Obtains the methods to be analyzed context-sensitively,
+     * and their context selectors.
+     *
+     * @param csMethods either "scaler", which runs Scaler on the result of
+     *                  a context-insensitive pre-analysis and analyzes each
+     *                  method with the variant chosen for it by Scaler,
+     *                  or the path to a file that lists the signatures of
+     *                  the methods, one per line, which are analyzed with
+     *                  the given selector.
+     * @param selector  the selector given by option "cs". The selectors
+     *                  of Scaler share its context trie.
+     */
+    private static Map<JMethod, ContextSelector> getCSSelectors(
+            AnalysisOptions options, String csMethods, ContextSelector selector) {
+        Map<JMethod, ContextSelector> selectors = Maps.newMap();
+        if (csMethods.equals("scaler")) {
+            Solver preSolver = new Solver(options,
+                    new AllocationSiteBasedModel(options), new CISelector());
+            preSolver.solve();
+            Map<String, ContextSelector> variants = Maps.newMap();
+            new Scaler(preSolver.getResult())
+                    .selectContext()
+                    .forEach((method, variant) -> {
+                        if (!variant.equals("ci")) {
+                            selectors.put(method, variants.computeIfAbsent(
+                                    variant, v -> getContextSelector(
+                                            v, selector.getEmptyContext())));
+                        }
+                    });
+        } else {
+            readCSMethods(csMethods).forEach(m -> selectors.put(m, selector));
+        }
+        logger.info("{} methods are analyzed context-sensitively", selectors.size());
+        return selectors;
+    }
+
+    private static Set<JMethod> readCSMethods(String path) {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        Set<JMethod> methods = Sets.newSet();
+        try {
+            for (String line : Files.readAllLines(Path.of(path))) {
+                String methodSig = line.strip();
+                if (methodSig.isEmpty() || methodSig.startsWith("#")) {
+                    continue;
+                }
+                JMethod method = hierarchy.getMethod(methodSig);
+                if (method != null) {
+                    methods.add(method);
+                } else {
+                    logger.warn("Cannot find method '{}'", methodSig);
+                }
+            }
+        } catch (IOException e) {
+            throw new ConfigException("Failed to read context-sensitive methods from " + path, e);
+        }
+        return methods;
+    }
 }
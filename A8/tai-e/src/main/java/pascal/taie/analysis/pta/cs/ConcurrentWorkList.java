@@ -0,0 +1,211 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.util.AnalysisException;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Work list which can be shared by multiple worker threads.
+ * <p>
+ * Entries are partitioned by their pointers, and each worker thread
+ * owns one partition. A worker processes the entries of its own
+ * partition first, and steals entries from other partitions when
+ * its own partition is empty. As entries of the same pointer mostly
+ * go to the same worker, workers rarely contend for points-to sets.
+ */
+class ConcurrentWorkList extends WorkList {
+
+    private final Deque<Entry>[] partitions;
+
+    /**
+     * Number of entries which have been added but not finished processing.
+     */
+    private final AtomicInteger unfinished = new AtomicInteger();
+
+    private volatile boolean failed = false;
+
+    /**
+     * Monitor on which idle workers wait for new entries.
+     */
+    private final Object monitor = new Object();
+
+    /**
+     * Number of workers waiting on {@link #monitor}.
+     */
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    @SuppressWarnings("unchecked")
+    ConcurrentWorkList(int partitions) {
+        this.partitions = (Deque<Entry>[]) new Deque<?>[partitions];
+        for (int i = 0; i < partitions; ++i) {
+            this.partitions[i] = new ConcurrentLinkedDeque<>();
+        }
+    }
+
+    @Override
+    void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        unfinished.incrementAndGet();
+        partitions[partitionOf(pointer)].add(new Entry(pointer, pointsToSet));
+        if (waiters.get() > 0) {
+            wakeUp();
+        }
+    }
+
+    private void wakeUp() {
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+
+    private int partitionOf(Pointer pointer) {
+        int h = pointer.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), partitions.length);
+    }
+
+    @Override
+    Entry pollEntry() {
+        return pollEntry(0);
+    }
+
+    /**
+     * Retrieves and removes an entry from given partition, or steals one
+     * from another partition if given partition is empty.
+     * Returns null if this work list is empty.
+     */
+    private Entry pollEntry(int partition) {
+        Entry entry = partitions[partition].pollFirst();
+        for (int i = 1; entry == null && i < partitions.length; ++i) {
+            // steal from the tail, which is far from the owner's end
+            entry = partitions[(partition + i) % partitions.length].pollLast();
+        }
+        return entry;
+    }
+
+    @Override
+    boolean isEmpty() {
+        for (Deque<Entry> partition : partitions) {
+            if (!partition.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Processes entries by one worker thread per partition until
+     * the work list is empty and no entry is being processed.
+     * New entries can be added during processing.
+     *
+     * @param processor processes an entry, it may be called concurrently
+     */
+    void drain(Consumer<Entry> processor) {
+        int threads = partitions.length;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; ++i) {
+                int partition = i;
+                futures.add(executor.submit(() -> {
+                    work(partition, processor);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Interrupted while solving", e);
+        } catch (ExecutionException e) {
+            throw new AnalysisException("Failed to process work list", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Polls and processes entries until all entries are finished.
+     * A worker that finds the work list empty while other workers are
+     * still processing entries waits until an entry is added or all
+     * entries are finished.
+     */
+    private void work(int partition, Consumer<Entry> processor)
+            throws InterruptedException {
+        while (!failed) {
+            Entry entry = pollEntry(partition);
+            if (entry != null) {
+                try {
+                    processor.accept(entry);
+                } catch (RuntimeException | Error e) {
+                    failed = true;
+                    wakeUp();
+                    throw e;
+                } finally {
+                    if (unfinished.decrementAndGet() == 0) {
+                        // entries are only added while processing other
+                        // entries, thus no entry will come
+                        wakeUp();
+                    }
+                }
+            } else if (!awaitEntry()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits until the work list is not empty. The entry that woke up
+     * this worker may have been polled by another worker, thus the
+     * caller should poll again as long as entries are unfinished.
+     *
+     * @return false if all entries are finished or another worker failed.
+     */
+    private boolean awaitEntry() throws InterruptedException {
+        synchronized (monitor) {
+            waiters.incrementAndGet();
+            try {
+                // the state is re-checked after registering as a waiter,
+                // so that a notification sent by addEntry() is not missed
+                while (isEmpty() && unfinished.get() > 0 && !failed) {
+                    monitor.wait();
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+        return unfinished.get() > 0 && !failed;
+    }
+}
@@ -23,8 +23,10 @@
 package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.collection.MapSetMultiMap;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
 
 import java.util.Set;
 
@@ -36,7 +38,20 @@ class PointerFlowGraph {
     /**
      * Map from a pointer (node) to its successors in PFG.
      */
-    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
+    private final MultiMap<Pointer, Pointer> successors;
+
+    PointerFlowGraph() {
+        this(false);
+    }
+
+    /**
+     * @param concurrent whether this PFG can be accessed by multiple threads.
+     */
+    PointerFlowGraph(boolean concurrent) {
+        successors = concurrent ?
+                new MapSetMultiMap<>(Maps.newConcurrentMap(), Sets::newConcurrentSet) :
+                Maps.newMultiMap();
+    }
 
     /**
      * Adds an edge (source -> target) to this PFG.
@@ -31,6 +31,7 @@ import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.ConcurrentCSCallGraph;
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
@@ -38,10 +39,11 @@ import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.IndexedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.InstanceField;
-import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.cs.selector.BudgetedSelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
@@ -63,6 +65,8 @@ import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
 
+import java.util.List;
+
 public class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
@@ -73,8 +77,24 @@ public class Solver {
 
     private final ContextSelector contextSelector;
 
+    /**
+     * Lock of the heap model, the dispatch of class hierarchy and the
+     * building of IR, which are not thread-safe. They are only accessed
+     * when new statements become reachable or call sites are resolved,
+     * thus the lock is rarely contended in parallel mode.
+     */
+    private final Object worldLock = new Object();
+
+    /**
+     * Number of threads for solving. If it is greater than 1,
+     * the solver runs in parallel mode.
+     */
+    private final int threads;
+
     private CSManager csManager;
 
+    private PointsToSetFactory ptsFactory;
+
     private CSCallGraph callGraph;
 
     private PointerFlowGraph pointerFlowGraph;
@@ -90,6 +110,8 @@ public class Solver {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.threads = options.get("threads") != null ?
+                options.getInt("threads") : 1;
     }
 
     public AnalysisOptions getOptions() {
@@ -111,10 +133,20 @@ public class Solver {
     }
 
     private void initialize() {
-        csManager = new MapBasedCSManager();
-        callGraph = new CSCallGraph(csManager);
-        pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        String pts = options.getString("pts");
+        IndexedCSManager indexed = new IndexedCSManager(
+                isParallel(), pts != null ? pts : "hybrid");
+        csManager = indexed;
+        ptsFactory = indexed.getPointsToSetFactory();
+        if (isParallel()) {
+            callGraph = new ConcurrentCSCallGraph(csManager);
+            pointerFlowGraph = new PointerFlowGraph(true);
+            workList = new ConcurrentWorkList(threads);
+        } else {
+            callGraph = new CSCallGraph(csManager);
+            pointerFlowGraph = new PointerFlowGraph();
+            workList = new WorkList();
+        }
         taintAnalysis = new TaintAnalysiss(this);
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
@@ -124,11 +156,24 @@ public class Solver {
         addReachable(csMethod);
     }
 
+    private boolean isParallel() {
+        return threads > 1;
+    }
+
     /**
      * Processes new reachable context-sensitive method.
      */
     private void addReachable(CSMethod csMethod) {
-        // TODO - finish me
+        boolean added;
+        synchronized (worldLock) {
+            // the call graph builds the IR of new reachable methods
+            added = callGraph.addReachableMethod(csMethod);
+        }
+        if (added) {
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            csMethod.getMethod().getIR()
+                    .forEach(stmt -> stmt.accept(stmtProcessor));
+        }
     }
 
     /**
@@ -145,31 +190,182 @@ public class Solver {
             this.context = csMethod.getContext();
         }
 
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+        @Override
+        public Void visit(New stmt) {
+            Obj obj;
+            synchronized (worldLock) {
+                obj = heapModel.getObj(stmt);
+            }
+            Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
+            CSObj csObj = csManager.getCSObj(heapContext, obj);
+            workList.addEntry(csManager.getCSVar(context, stmt.getLValue()),
+                    ptsFactory.newPointsToSet(csObj));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                    csManager.getCSVar(context, stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(csManager.getStaticField(field),
+                        csManager.getCSVar(context, stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                        csManager.getStaticField(field));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                if (callee != null) {
+                    CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                    Context calleeContext = contextSelector.selectContext(
+                            csCallSite, callee);
+                    processCallEdge(new Edge<>(CallKind.STATIC, csCallSite,
+                            csManager.getCSMethod(calleeContext, callee)));
+                }
+            }
+            return null;
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                workList.addEntry(target, pts);
+            }
+        }
+    }
+
+    /**
+     * Makes the callee reachable and adds a call edge to the call graph.
+     * If the edge is new, connects arguments to parameters and return
+     * variables to the receiver of the call site.
+     * The callee is made reachable before the edge is added, so that
+     * its IR is built once by the call graph before it is read.
+     */
+    private void processCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        CSMethod csCallee = edge.getCallee();
+        addReachable(csCallee);
+        if (callGraph.addEdge(edge)) {
+            CSCallSite csCallSite = edge.getCallSite();
+            Context callerContext = csCallSite.getContext();
+            Context calleeContext = csCallee.getContext();
+            Invoke callSite = csCallSite.getCallSite();
+            JMethod callee = csCallee.getMethod();
+            InvokeExp invokeExp = callSite.getInvokeExp();
+            List<Var> params = callee.getIR().getParams();
+            for (int i = 0; i < params.size(); ++i) {
+                addPFGEdge(csManager.getCSVar(callerContext, invokeExp.getArg(i)),
+                        csManager.getCSVar(calleeContext, params.get(i)));
+            }
+            Var result = callSite.getLValue();
+            if (result != null) {
+                CSVar csResult = csManager.getCSVar(callerContext, result);
+                for (Var ret : callee.getIR().getReturnVars()) {
+                    addPFGEdge(csManager.getCSVar(calleeContext, ret), csResult);
+                }
+            }
+        }
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
+     * <p>
+     * In parallel mode, the entries are processed by
+     * {@link ConcurrentWorkList#drain}, and the processing of each entry
+     * (including adding reachable methods, PFG edges and call edges)
+     * may run concurrently. The CSManager, PFG, points-to sets, call graph
+     * and context selectors are thread-safe in this mode. As propagation
+     * is monotone, the final result is the same as the one of sequential
+     * mode, except with {@link BudgetedSelector}, whose degradation of
+     * methods depends on the order of processing.
      */
     private void analyze() {
-        // TODO - finish me
+        if (isParallel()) {
+            ((ConcurrentWorkList) workList).drain(this::process);
+        } else {
+            while (!workList.isEmpty()) {
+                process(workList.pollEntry());
+            }
+        }
+    }
+
+    /**
+     * Processes a work-list entry: propagates its points-to set, and then
+     * processes the instance field/array accesses and instance calls on
+     * the newly pointed objects if the pointer is a variable.
+     */
+    private void process(WorkList.Entry entry) {
+        Pointer pointer = entry.pointer();
+        PointsToSet delta = propagate(pointer, entry.pointsToSet());
+        if (delta.isEmpty() || !(pointer instanceof CSVar csVar)) {
+            return;
+        }
+        Var var = csVar.getVar();
+        Context context = csVar.getContext();
+        for (CSObj csObj : delta) {
+            for (StoreField store : var.getStoreFields()) {
+                JField field = store.getFieldRef().resolve();
+                addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                        csManager.getInstanceField(csObj, field));
+            }
+            for (LoadField load : var.getLoadFields()) {
+                JField field = load.getFieldRef().resolve();
+                addPFGEdge(csManager.getInstanceField(csObj, field),
+                        csManager.getCSVar(context, load.getLValue()));
+            }
+            for (StoreArray store : var.getStoreArrays()) {
+                addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                        csManager.getArrayIndex(csObj));
+            }
+            for (LoadArray load : var.getLoadArrays()) {
+                addPFGEdge(csManager.getArrayIndex(csObj),
+                        csManager.getCSVar(context, load.getLValue()));
+            }
+            processCall(csVar, csObj);
+        }
     }
 
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
+     * The difference set can be obtained by {@link PointsToSet#addAllDiff},
+     * which merges bit vectors word by word when option pts is bit-vector.
+     * If pointer is a {@link CSVar}, call {@link #checkBudget} afterwards.
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-        return null;
+        PointsToSet diff = pointer.getPointsToSet().addAllDiff(pointsToSet);
+        if (!diff.isEmpty()) {
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                workList.addEntry(succ, diff);
+            }
+            if (pointer instanceof CSVar csVar) {
+                checkBudget(csVar);
+            }
+        }
+        return diff;
     }
 
     /**
@@ -179,7 +375,32 @@ public class Solver {
      * @param recvObj set of new discovered objects pointed by the variable.
      */
     private void processCall(CSVar recv, CSObj recvObj) {
-        // TODO - finish me
+        Context context = recv.getContext();
+        for (Invoke callSite : recv.getVar().getInvokes()) {
+            JMethod callee = resolveCallee(recvObj, callSite);
+            if (callee == null) {
+                continue;
+            }
+            CSCallSite csCallSite = csManager.getCSCallSite(context, callSite);
+            Context calleeContext = contextSelector.selectContext(
+                    csCallSite, recvObj, callee);
+            // processes the edge first, which makes the callee reachable
+            processCallEdge(new Edge<>(CallGraphs.getCallKind(callSite),
+                    csCallSite, csManager.getCSMethod(calleeContext, callee)));
+            workList.addEntry(
+                    csManager.getCSVar(calleeContext, callee.getIR().getThis()),
+                    ptsFactory.newPointsToSet(recvObj));
+        }
+    }
+
+    /**
+     * Checks the points-to set of given variable against the budget of
+     * the analysis, if any. Call this after propagating to a CSVar.
+     */
+    private void checkBudget(CSVar csVar) {
+        if (contextSelector instanceof BudgetedSelector budgeted) {
+            budgeted.checkPointsToSize(csVar);
+        }
     }
 
     /**
@@ -192,7 +413,9 @@ public class Solver {
      */
     private JMethod resolveCallee(CSObj recv, Invoke callSite) {
         Type type = recv != null ? recv.getObject().getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+        synchronized (worldLock) {
+            return CallGraphs.resolveCallee(type, callSite);
+        }
     }
 
     public PointerAnalysisResult getResult() {
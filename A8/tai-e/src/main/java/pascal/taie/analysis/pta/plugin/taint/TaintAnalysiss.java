@@ -61,6 +61,9 @@ public class TaintAnalysiss {
     }
 
     // TODO - finish me
+    //  In parallel mode (option threads > 1), the hooks called by the
+    //  solver may run concurrently, so any state kept here must be
+    //  thread-safe (TaintManager already is).
 
     public void onFinish() {
         Set<TaintFlow> taintFlows = collectTaintFlows();
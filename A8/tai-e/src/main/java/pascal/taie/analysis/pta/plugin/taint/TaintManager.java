@@ -31,7 +31,8 @@ import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.TwoKeyMap;
 
 /**
- * Manages taint objects.
+ * Manages taint objects. This class is thread-safe, so that taint
+ * objects can be made by the solver in parallel mode.
  */
 class TaintManager {
 
@@ -46,7 +47,7 @@ class TaintManager {
      * @param type   type of the taint object
      * @return the taint object for given source and type.
      */
-    Obj makeTaint(Invoke source, Type type) {
+    synchronized Obj makeTaint(Invoke source, Type type) {
         return taints.computeIfAbsent(source, type,
                 (s, t) -> new MockObj(TAINT_DESC, s, t));
     }
@@ -0,0 +1,155 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.IndexedCSManager;
+import pascal.taie.util.AnalysisException;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Points-to set backed by a sparse bit vector over the indexes of
+ * {@link CSObj}s, which are assigned by an {@link IndexedCSManager}.
+ * Union and difference of two such sets are computed word by word.
+ */
+class BitVectorPointsToSet implements PointsToSet {
+
+    private final IndexedCSManager csManager;
+
+    private final SparseBitVector bits;
+
+    BitVectorPointsToSet(IndexedCSManager csManager) {
+        this(csManager, new SparseBitVector());
+    }
+
+    private BitVectorPointsToSet(IndexedCSManager csManager, SparseBitVector bits) {
+        this.csManager = csManager;
+        this.bits = bits;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        return bits.set(indexOf(obj));
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        if (pts instanceof BitVectorPointsToSet other) {
+            return bits.addAll(other.bits);
+        }
+        boolean changed = false;
+        for (CSObj obj : pts) {
+            changed |= addObject(obj);
+        }
+        return changed;
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        if (pts instanceof BitVectorPointsToSet other) {
+            return new BitVectorPointsToSet(csManager, bits.addAllDiff(other.bits));
+        }
+        return PointsToSet.super.addAllDiff(pts);
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        int index = obj.getIndex();
+        return index >= 0 && bits.get(index);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return bits.cardinality();
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj && BitVectorPointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public Iterator<CSObj> iterator() {
+                return BitVectorPointsToSet.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return BitVectorPointsToSet.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), size(),
+                Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public Iterator<CSObj> iterator() {
+        PrimitiveIterator.OfInt it = bits.iterator();
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public CSObj next() {
+                return csManager.getObject(it.nextInt());
+            }
+        };
+    }
+
+    private static int indexOf(CSObj obj) {
+        int index = obj.getIndex();
+        if (index < 0) {
+            throw new AnalysisException(obj + " has no index");
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set which can be read and modified by multiple threads.
+ * It guards a points-to set of another representation by its lock.
+ * Set-wise operations read the delegate of the other set in place,
+ * holding the locks of both sets, which are acquired in the order
+ * of their ids to avoid deadlock.
+ */
+class ConcurrentPointsToSet implements PointsToSet {
+
+    private static final AtomicLong counter = new AtomicLong();
+
+    /**
+     * Id which decides the order of acquiring the locks of two sets.
+     */
+    private final long id = counter.getAndIncrement();
+
+    private final PointsToSet delegate;
+
+    /**
+     * Makes empty sets of the same representation as the delegate.
+     */
+    private final Supplier<PointsToSet> factory;
+
+    ConcurrentPointsToSet(Supplier<PointsToSet> factory) {
+        this.delegate = factory.get();
+        this.factory = factory;
+    }
+
+    @Override
+    public synchronized boolean addObject(CSObj obj) {
+        return delegate.addObject(obj);
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        return locked(pts, delegate::addAll);
+    }
+
+    /**
+     * The returned difference set is not guarded, as it is never
+     * modified after the call.
+     */
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        return locked(pts, delegate::addAllDiff);
+    }
+
+    /**
+     * Applies the action to the delegate of pts (or pts itself if it is
+     * not shared among threads), holding the lock of this set and,
+     * if pts is also shared among threads, the lock of pts.
+     */
+    private <R> R locked(PointsToSet pts, Function<PointsToSet, R> action) {
+        if (!(pts instanceof ConcurrentPointsToSet other)) {
+            synchronized (this) {
+                return action.apply(pts);
+            }
+        }
+        if (other == this) {
+            // adding a set to itself adds nothing
+            synchronized (this) {
+                return action.apply(factory.get());
+            }
+        }
+        ConcurrentPointsToSet first = id < other.id ? this : other;
+        ConcurrentPointsToSet second = first == this ? other : this;
+        synchronized (first) {
+            synchronized (second) {
+                return action.apply(other.delegate);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean contains(CSObj obj) {
+        return delegate.contains(obj);
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public synchronized int size() {
+        return delegate.size();
+    }
+
+    /**
+     * Reads a copy of this set. This is not used on the propagation
+     * path, which only iterates the difference sets, and it is mainly
+     * for reading the results after solving.
+     */
+    @Override
+    public Set<CSObj> getObjects() {
+        return copy().getObjects();
+    }
+
+    /**
+     * Iterates over a copy of this set, see {@link #getObjects()}.
+     */
+    @Override
+    public Stream<CSObj> objects() {
+        return copy().objects();
+    }
+
+    /**
+     * Iterates over a copy of this set, see {@link #getObjects()}.
+     */
+    @Override
+    public Iterator<CSObj> iterator() {
+        return copy().iterator();
+    }
+
+    private synchronized PointsToSet copy() {
+        PointsToSet copy = factory.get();
+        copy.addAll(delegate);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return copy().toString();
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set that shares its content with other points-to sets.
+ * <p>
+ * The content is an immutable {@link ObjSet} that is hash-consed in
+ * a {@link Pool}, so pointers with identical points-to sets share one
+ * {@link ObjSet}. Growing a set replaces its content by another
+ * hash-consed {@link ObjSet} (copy-on-write), and the results of
+ * growing operations are memoized in the source {@link ObjSet}s, so
+ * the same growth of many shared sets is computed only once. The memos
+ * are bounded, and the pool holds its {@link ObjSet}s weakly, so the
+ * intermediate contents that no set refers to any more can be reclaimed.
+ * <p>
+ * This class is not thread-safe, but the {@link ObjSet}s and the
+ * {@link Pool} can be shared by sets in different threads.
+ */
+class HashConsedPointsToSet implements PointsToSet {
+
+    private final Pool pool;
+
+    private ObjSet set;
+
+    HashConsedPointsToSet(Pool pool) {
+        this(pool, pool.empty);
+    }
+
+    private HashConsedPointsToSet(Pool pool, ObjSet set) {
+        this.pool = pool;
+        this.set = set;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        return update(set.add(obj, pool));
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        if (pts instanceof HashConsedPointsToSet other && other.pool == pool) {
+            return update(set.union(other.set, pool));
+        }
+        boolean changed = false;
+        for (CSObj obj : pts) {
+            changed |= addObject(obj);
+        }
+        return changed;
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        if (!(pts instanceof HashConsedPointsToSet other) || other.pool != pool) {
+            return PointsToSet.super.addAllDiff(pts);
+        }
+        ObjSet oldSet = set;
+        if (!update(oldSet.union(other.set, pool))) {
+            return new HashConsedPointsToSet(pool);
+        }
+        if (oldSet.objs.isEmpty()) {
+            return new HashConsedPointsToSet(pool, other.set);
+        }
+        Set<CSObj> diff = Sets.newHybridSet();
+        for (CSObj obj : other.set.objs) {
+            if (!oldSet.objs.contains(obj)) {
+                diff.add(obj);
+            }
+        }
+        return new HashConsedPointsToSet(pool, pool.intern(diff));
+    }
+
+    private boolean update(ObjSet newSet) {
+        if (newSet != set) {
+            set = newSet;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        return set.objs.contains(obj);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return set.objs.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return set.objs.size();
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return set.objs;
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return set.objs.stream();
+    }
+
+    @Override
+    public String toString() {
+        return set.objs.toString();
+    }
+
+    /**
+     * Immutable, hash-consed set of objects.
+     */
+    private static class ObjSet {
+
+        /**
+         * Maximum number of memoized results of each kind in an ObjSet.
+         */
+        private static final int MEMO_LIMIT = 16;
+
+        private final Set<CSObj> objs;
+
+        private final int hash;
+
+        /**
+         * Memoized results of {@link #add}, created on demand.
+         */
+        private Map<CSObj, ObjSet> adds;
+
+        /**
+         * Memoized results of {@link #union}, created on demand.
+         */
+        private Map<ObjSet, ObjSet> unions;
+
+        private ObjSet(Set<CSObj> objs) {
+            this.objs = Collections.unmodifiableSet(objs);
+            this.hash = objs.hashCode();
+        }
+
+        private synchronized ObjSet add(CSObj obj, Pool pool) {
+            if (objs.contains(obj)) {
+                return this;
+            }
+            if (adds == null) {
+                adds = Maps.newHybridMap();
+            } else if (adds.size() >= MEMO_LIMIT) {
+                adds.clear();
+            }
+            return adds.computeIfAbsent(obj, o -> {
+                Set<CSObj> newObjs = Sets.newHybridSet(objs);
+                newObjs.add(o);
+                return pool.intern(newObjs);
+            });
+        }
+
+        private synchronized ObjSet union(ObjSet other, Pool pool) {
+            if (this == other || other.objs.isEmpty()) {
+                return this;
+            }
+            if (objs.isEmpty()) {
+                return other;
+            }
+            if (unions == null) {
+                unions = Maps.newHybridMap();
+            } else if (unions.size() >= MEMO_LIMIT) {
+                unions.clear();
+            }
+            return unions.computeIfAbsent(other, o -> {
+                if (objs.size() >= o.objs.size() && objs.containsAll(o.objs)) {
+                    return this;
+                }
+                Set<CSObj> newObjs = Sets.newHybridSet(objs);
+                newObjs.addAll(o.objs);
+                return newObjs.size() == o.objs.size() ? o : pool.intern(newObjs);
+            });
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ObjSet that)) {
+                return false;
+            }
+            return hash == that.hash && objs.equals(that.objs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Pool of hash-consed {@link ObjSet}s, which holds them weakly.
+     */
+    static class Pool {
+
+        private final ObjSet empty = new ObjSet(Set.of());
+
+        private final Map<ObjSet, WeakReference<ObjSet>> sets = new WeakHashMap<>();
+
+        private synchronized ObjSet intern(Set<CSObj> objs) {
+            if (objs.isEmpty()) {
+                return empty;
+            }
+            ObjSet set = new ObjSet(objs);
+            WeakReference<ObjSet> ref = sets.get(set);
+            ObjSet existing = ref != null ? ref.get() : null;
+            if (existing != null) {
+                return existing;
+            }
+            sets.put(set, new WeakReference<>(set));
+            return set;
+        }
+    }
+}
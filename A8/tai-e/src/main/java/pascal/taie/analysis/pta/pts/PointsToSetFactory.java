@@ -22,20 +22,92 @@
 
 package pascal.taie.analysis.pta.pts;
 
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.IndexedCSManager;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.collection.Sets;
 
 import java.util.Set;
 import java.util.function.Supplier;
 
 /**
- * Provides static factory methods for {@link PointsToSet}.
+ * Provides factory methods for {@link PointsToSet}.
+ * <p>
+ * An instance made by {@link #of} makes the sets of the representation
+ * selected for one analysis, and it is owned by the {@link CSManager}
+ * of the analysis, so that analyses never share the hash-consing pool
+ * or object indexes. The static methods make hybrid sets.
  */
 public class PointsToSetFactory {
 
     private static final Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
 
+    private final Supplier<PointsToSet> ptsFactory;
+
+    private PointsToSetFactory(Supplier<PointsToSet> ptsFactory) {
+        this.ptsFactory = ptsFactory;
+    }
+
+    /**
+     * @param kind       "hybrid" for hybrid sets, "hash-consed" for
+     *                   immutable, hash-consed sets with copy-on-write growth,
+     *                   or "bit-vector" for sparse bit vectors.
+     * @param csManager  the CSManager whose object indexes are used by
+     *                   bit-vector sets.
+     * @param concurrent whether the points-to sets can be read and
+     *                   modified by multiple threads.
+     * @return a factory of the points-to sets of given kind.
+     */
+    public static PointsToSetFactory of(String kind, CSManager csManager,
+                                        boolean concurrent) {
+        Supplier<PointsToSet> factory = switch (kind) {
+            case "hybrid" -> PointsToSetFactory::makeHybrid;
+            case "hash-consed" -> {
+                HashConsedPointsToSet.Pool pool = new HashConsedPointsToSet.Pool();
+                yield () -> new HashConsedPointsToSet(pool);
+            }
+            case "bit-vector" -> {
+                if (!(csManager instanceof IndexedCSManager indexed)) {
+                    throw new ConfigException(
+                            "Bit-vector points-to sets require " + IndexedCSManager.class);
+                }
+                yield () -> new BitVectorPointsToSet(indexed);
+            }
+            default -> throw new ConfigException(
+                    "Unexpected kind of points-to sets: " + kind);
+        };
+        if (concurrent) {
+            Supplier<PointsToSet> delegate = factory;
+            factory = () -> new ConcurrentPointsToSet(delegate);
+        }
+        return new PointsToSetFactory(factory);
+    }
+
+    /**
+     * @return an empty points-to set of the kind of this factory.
+     */
+    public PointsToSet newPointsToSet() {
+        return ptsFactory.get();
+    }
+
+    /**
+     * @return a one-element points-to set of the kind of this factory.
+     */
+    public PointsToSet newPointsToSet(CSObj obj) {
+        PointsToSet set = newPointsToSet();
+        set.addObject(obj);
+        return set;
+    }
+
+    /**
+     * @return an empty hybrid points-to set.
+     */
     public static PointsToSet make() {
+        return makeHybrid();
+    }
+
+    private static PointsToSet makeHybrid() {
         return new DelegatePointsToSet(setFactory.get());
     }
 
@@ -0,0 +1,325 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Sparse bit vector which stores bits in fixed-size chunks of words.
+ * Only chunks that contain set bits are allocated, and they are kept
+ * sorted by their keys, so that two vectors can be merged word by word.
+ */
+class SparseBitVector {
+
+    /**
+     * Each chunk holds 2^CHUNK_SHIFT bits.
+     */
+    private static final int CHUNK_SHIFT = 9;
+
+    private static final int CHUNK_WORDS = 1 << (CHUNK_SHIFT - 6);
+
+    private static final int[] EMPTY_KEYS = {};
+
+    private static final long[][] EMPTY_CHUNKS = {};
+
+    /**
+     * Keys (i.e., bit index >>> CHUNK_SHIFT) of allocated chunks,
+     * in ascending order.
+     */
+    private int[] keys = EMPTY_KEYS;
+
+    private long[][] chunks = EMPTY_CHUNKS;
+
+    private int chunkCount = 0;
+
+    private int cardinality = 0;
+
+    /**
+     * Sets the given bit.
+     *
+     * @return true if the bit was not set before, otherwise false.
+     */
+    boolean set(int bit) {
+        int key = bit >>> CHUNK_SHIFT;
+        int pos = Arrays.binarySearch(keys, 0, chunkCount, key);
+        long[] chunk;
+        if (pos >= 0) {
+            chunk = chunks[pos];
+        } else {
+            chunk = new long[CHUNK_WORDS];
+            insertChunk(-pos - 1, key, chunk);
+        }
+        int word = (bit >>> 6) & (CHUNK_WORDS - 1);
+        long mask = 1L << bit;
+        if ((chunk[word] & mask) != 0) {
+            return false;
+        }
+        chunk[word] |= mask;
+        ++cardinality;
+        return true;
+    }
+
+    /**
+     * @return true if the given bit is set, otherwise false.
+     */
+    boolean get(int bit) {
+        int pos = Arrays.binarySearch(keys, 0, chunkCount, bit >>> CHUNK_SHIFT);
+        return pos >= 0 &&
+                (chunks[pos][(bit >>> 6) & (CHUNK_WORDS - 1)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Adds all bits of other vector to this vector.
+     *
+     * @return a new vector which contains the bits that are set in
+     * other vector but were not set in this vector before the call.
+     */
+    SparseBitVector addAllDiff(SparseBitVector other) {
+        SparseBitVector diff = new SparseBitVector();
+        merge(other, diff);
+        return diff;
+    }
+
+    /**
+     * Adds all bits of other vector to this vector.
+     *
+     * @return true if this vector changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addAll(SparseBitVector other) {
+        int oldCardinality = cardinality;
+        merge(other, null);
+        return cardinality != oldCardinality;
+    }
+
+    /**
+     * @return a copy of this vector.
+     */
+    SparseBitVector copy() {
+        SparseBitVector copy = new SparseBitVector();
+        copy.keys = Arrays.copyOf(keys, chunkCount);
+        copy.chunks = new long[chunkCount][];
+        for (int i = 0; i < chunkCount; ++i) {
+            copy.chunks[i] = chunks[i].clone();
+        }
+        copy.chunkCount = chunkCount;
+        copy.cardinality = cardinality;
+        return copy;
+    }
+
+    /**
+     * Merges other vector into this vector, and records the newly-set
+     * bits in diff if it is not null.
+     */
+    private void merge(SparseBitVector other, SparseBitVector diff) {
+        if (other.cardinality == 0) {
+            return;
+        }
+        int missing = countMissingChunks(other);
+        // if all chunks of other vector are present, merge in place
+        int[] newKeys = missing == 0 ? keys : new int[chunkCount + missing];
+        long[][] newChunks = missing == 0 ? chunks : new long[chunkCount + missing][];
+        int i = 0, j = 0, k = 0;
+        while (i < chunkCount || j < other.chunkCount) {
+            int ki = i < chunkCount ? keys[i] : Integer.MAX_VALUE;
+            int kj = j < other.chunkCount ? other.keys[j] : Integer.MAX_VALUE;
+            if (ki < kj) {
+                newKeys[k] = ki;
+                newChunks[k] = chunks[i];
+                ++i;
+            } else if (ki > kj) {
+                long[] chunk = other.chunks[j].clone();
+                int n = bitCount(chunk);
+                newKeys[k] = kj;
+                newChunks[k] = chunk;
+                cardinality += n;
+                if (diff != null) {
+                    diff.appendChunk(kj, chunk.clone(), n);
+                }
+                ++j;
+            } else {
+                long[] mine = chunks[i];
+                long[] theirs = other.chunks[j];
+                long[] delta = null;
+                int n = 0;
+                for (int w = 0; w < CHUNK_WORDS; ++w) {
+                    long added = theirs[w] & ~mine[w];
+                    if (added != 0) {
+                        mine[w] |= added;
+                        if (diff != null) {
+                            if (delta == null) {
+                                delta = new long[CHUNK_WORDS];
+                            }
+                            delta[w] = added;
+                        }
+                        n += Long.bitCount(added);
+                    }
+                }
+                cardinality += n;
+                if (delta != null) {
+                    diff.appendChunk(kj, delta, n);
+                }
+                newKeys[k] = ki;
+                newChunks[k] = mine;
+                ++i;
+                ++j;
+            }
+            ++k;
+        }
+        keys = newKeys;
+        chunks = newChunks;
+        chunkCount = k;
+    }
+
+    /**
+     * @return true if this vector and other vector have the same set bits.
+     */
+    boolean hasSameBits(SparseBitVector other) {
+        if (cardinality != other.cardinality) {
+            return false;
+        }
+        // chunks are allocated only when bits are set in them, but the bits
+        // of a chunk are never cleared, thus equal vectors have equal keys
+        if (chunkCount != other.chunkCount) {
+            return false;
+        }
+        for (int i = 0; i < chunkCount; ++i) {
+            if (keys[i] != other.keys[i]
+                    || !Arrays.equals(chunks[i], other.chunks[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of set bits.
+     */
+    int cardinality() {
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * @return an iterator over the indexes of set bits, in ascending order.
+     */
+    PrimitiveIterator.OfInt iterator() {
+        return new BitIterator();
+    }
+
+    private int countMissingChunks(SparseBitVector other) {
+        int missing = 0;
+        int i = 0;
+        for (int j = 0; j < other.chunkCount; ++j) {
+            int key = other.keys[j];
+            while (i < chunkCount && keys[i] < key) {
+                ++i;
+            }
+            if (i == chunkCount || keys[i] != key) {
+                ++missing;
+            }
+        }
+        return missing;
+    }
+
+    private void insertChunk(int pos, int key, long[] chunk) {
+        ensureCapacity(chunkCount + 1);
+        System.arraycopy(keys, pos, keys, pos + 1, chunkCount - pos);
+        System.arraycopy(chunks, pos, chunks, pos + 1, chunkCount - pos);
+        keys[pos] = key;
+        chunks[pos] = chunk;
+        ++chunkCount;
+    }
+
+    /**
+     * Appends a chunk whose key is greater than all existing keys.
+     */
+    private void appendChunk(int key, long[] chunk, int bitCount) {
+        ensureCapacity(chunkCount + 1);
+        keys[chunkCount] = key;
+        chunks[chunkCount] = chunk;
+        ++chunkCount;
+        cardinality += bitCount;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newLength = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, newLength);
+            chunks = Arrays.copyOf(chunks, newLength);
+        }
+    }
+
+    private static int bitCount(long[] chunk) {
+        int n = 0;
+        for (long word : chunk) {
+            n += Long.bitCount(word);
+        }
+        return n;
+    }
+
+    private class BitIterator implements PrimitiveIterator.OfInt {
+
+        private int chunkIndex = 0;
+
+        private int wordIndex = 0;
+
+        /**
+         * Remaining bits of current word.
+         */
+        private long word = chunkCount > 0 ? chunks[0][0] : 0;
+
+        @Override
+        public boolean hasNext() {
+            while (word == 0) {
+                if (chunkIndex >= chunkCount) {
+                    return false;
+                }
+                if (++wordIndex == CHUNK_WORDS) {
+                    wordIndex = 0;
+                    if (++chunkIndex >= chunkCount) {
+                        return false;
+                    }
+                }
+                word = chunks[chunkIndex][wordIndex];
+            }
+            return true;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int bit = (keys[chunkIndex] << CHUNK_SHIFT)
+                    + (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return bit;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class ListContextTest {
+
+    @Test
+    public void testMakeInternsContexts() {
+        Context c1 = ListContext.make("a", "b");
+        Context c2 = ListContext.make("a", "b");
+        Assert.assertSame(c1, c2);
+        Assert.assertNotSame(c1, ListContext.make("b", "a"));
+        Assert.assertSame(ListContext.make(), ListContext.make(new String[0]));
+        Assert.assertEquals(2, c1.getLength());
+        Assert.assertEquals("a", c1.getElementAt(0));
+        Assert.assertEquals("b", c1.getElementAt(1));
+        Assert.assertSame(ListContext.make("a"), ((ListContext<?>) c1).getParent());
+    }
+
+    @Test
+    public void testAppendKeepsLastElements() {
+        Context empty = ListContext.newEmptyContext();
+        Context a = ListContext.append(empty, "a", 2);
+        Context ab = ListContext.append(a, "b", 2);
+        Context bc = ListContext.append(ab, "c", 2);
+        Assert.assertEquals("[a, b]", ab.toString());
+        Assert.assertEquals("[b, c]", bc.toString());
+        // contexts with the same elements are the same object in a trie
+        Assert.assertSame(bc, ListContext.append(
+                ListContext.append(empty, "b", 2), "c", 2));
+        Assert.assertSame(ListContext.append(empty, "c", 1),
+                ListContext.append(bc, "c", 1));
+        Assert.assertSame(empty, ListContext.append(bc, "d", 0));
+    }
+
+    @Test
+    public void testTruncate() {
+        Context empty = ListContext.newEmptyContext();
+        Context abc = ListContext.append(ListContext.append(
+                ListContext.append(empty, "a", 3), "b", 3), "c", 3);
+        Assert.assertSame(abc, ListContext.truncate(abc, 3));
+        Context bc = ListContext.truncate(abc, 2);
+        Assert.assertEquals("[b, c]", bc.toString());
+        Assert.assertSame(bc, ListContext.append(
+                ListContext.append(empty, "b", 2), "c", 2));
+        Assert.assertSame(empty, ListContext.truncate(abc, 0));
+    }
+
+    @Test
+    public void testTriesAreSeparate() {
+        Context empty1 = ListContext.newEmptyContext();
+        Context empty2 = ListContext.newEmptyContext();
+        Context a1 = ListContext.append(empty1, "a", 1);
+        Context a2 = ListContext.append(empty2, "a", 1);
+        Assert.assertNotSame(a1, a2);
+        Assert.assertNotSame(a1, ListContext.make("a"));
+        Assert.assertSame(empty1, ListContext.truncate(a1, 0));
+    }
+
+    @Test
+    public void testIdsAreUniqueInTrie() {
+        Context empty = ListContext.newEmptyContext();
+        Set<Integer> ids = new HashSet<>();
+        ids.add(((ListContext<?>) empty).getId());
+        for (int i = 0; i < 10; ++i) {
+            Context c = ListContext.append(empty, i, 2);
+            for (int j = 0; j < 10; ++j) {
+                ListContext<?> cj = (ListContext<?>) ListContext.append(c, j, 2);
+                Assert.assertSame(cj, ListContext.append(c, j, 2));
+                ids.add(cj.getId());
+            }
+            ids.add(((ListContext<?>) c).getId());
+        }
+        Assert.assertEquals(1 + 10 + 100, ids.size());
+    }
+}
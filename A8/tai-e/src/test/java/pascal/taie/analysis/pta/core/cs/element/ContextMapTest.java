@@ -0,0 +1,103 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ContextMapTest {
+
+    /**
+     * Context which is not interned, and is compared by its elements.
+     */
+    private record PlainContext(List<Object> elements) implements Context {
+
+        @Override
+        public int getLength() {
+            return elements.size();
+        }
+
+        @Override
+        public Object getElementAt(int i) {
+            return elements.get(i);
+        }
+    }
+
+    @Test
+    public void testGetCreatesOnce() {
+        ContextMap<String> map = new ContextMap<>();
+        Context empty = ListContext.newEmptyContext();
+        Context a = ListContext.append(empty, "a", 1);
+        Assert.assertEquals("[]", map.get(empty, Context::toString));
+        Assert.assertEquals("[a]", map.get(a, Context::toString));
+        Assert.assertEquals("[]", map.get(empty, c -> "unexpected"));
+        Assert.assertEquals("[a]", map.get(a, c -> "unexpected"));
+        Assert.assertEquals(List.of("[]", "[a]"), List.copyOf(map.values()));
+    }
+
+    @Test
+    public void testContextsOfDifferentTries() {
+        ContextMap<Context> map = new ContextMap<>();
+        Context empty1 = ListContext.newEmptyContext();
+        Context empty2 = ListContext.newEmptyContext();
+        // the contexts have the same ids in their tries
+        Context a1 = ListContext.append(empty1, "a", 1);
+        Context a2 = ListContext.append(empty2, "a", 1);
+        Assert.assertSame(empty1, map.get(empty1, c -> c));
+        Assert.assertSame(empty2, map.get(empty2, c -> c));
+        Assert.assertSame(a1, map.get(a1, c -> c));
+        Assert.assertSame(a2, map.get(a2, c -> c));
+        Assert.assertEquals(4, map.values().size());
+    }
+
+    @Test
+    public void testOtherContexts() {
+        ContextMap<Context> map = new ContextMap<>();
+        Context c1 = new PlainContext(List.of("a", "b"));
+        Context c2 = new PlainContext(List.of("a", "b"));
+        Assert.assertSame(c1, map.get(c1, c -> c));
+        Assert.assertSame(c1, map.get(c2, c -> c));
+        Assert.assertEquals(1, map.values().size());
+    }
+
+    @Test
+    public void testManyContexts() {
+        ContextMap<Context> map = new ContextMap<>();
+        Context empty = ListContext.newEmptyContext();
+        List<Context> contexts = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            for (int j = 0; j < 10; ++j) {
+                contexts.add(ListContext.append(
+                        ListContext.append(empty, i, 2), j, 2));
+            }
+        }
+        contexts.forEach(c -> map.get(c, x -> x));
+        contexts.forEach(c -> Assert.assertSame(c, map.get(c, x -> null)));
+        Assert.assertEquals(contexts, List.copyOf(map.values()));
+    }
+}
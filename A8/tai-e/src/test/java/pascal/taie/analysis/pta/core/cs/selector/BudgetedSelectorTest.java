@@ -0,0 +1,160 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.IndexedCSManager;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.VoidType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class BudgetedSelectorTest {
+
+    /**
+     * Selector which selects the given contexts, and counts
+     * the selections of heap contexts.
+     */
+    private static class FixedSelector implements ContextSelector {
+
+        private final Context emptyContext = ListContext.newEmptyContext();
+
+        private Context context = emptyContext;
+
+        private Context heapContext = emptyContext;
+
+        private int heapSelections = 0;
+
+        @Override
+        public Context getEmptyContext() {
+            return emptyContext;
+        }
+
+        @Override
+        public Context selectContext(CSCallSite callSite, JMethod callee) {
+            return context;
+        }
+
+        @Override
+        public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+            return context;
+        }
+
+        @Override
+        public Context selectHeapContext(CSMethod method, Obj obj) {
+            ++heapSelections;
+            return heapContext;
+        }
+
+        private Context make(Object... elements) {
+            Context result = emptyContext;
+            for (Object elem : elements) {
+                result = ListContext.append(result, elem, elements.length);
+            }
+            return result;
+        }
+    }
+
+    private final CSManager csManager = new IndexedCSManager();
+
+    private final JMethod method = new JMethod(new JClass(null, "C"), "m",
+            Set.of(), List.of(), VoidType.VOID, List.of(),
+            AnnotationHolder.emptyHolder(), null, null);
+
+    @Test
+    public void testContextBudget() {
+        FixedSelector delegate = new FixedSelector();
+        BudgetedSelector selector = new BudgetedSelector(delegate, 2, 0, 0);
+        delegate.context = delegate.make("a", "b");
+        Assert.assertSame(delegate.context, selector.selectContext(null, method));
+        delegate.context = delegate.make("a", "c");
+        Assert.assertSame(delegate.context, selector.selectContext(null, method));
+        Assert.assertTrue(selector.getDegradedMethods().isEmpty());
+        // the third context exceeds the budget
+        delegate.context = delegate.make("a", "d");
+        Assert.assertSame(delegate.make("d"), selector.selectContext(null, method));
+        Assert.assertEquals(Map.of(method, 1), selector.getDegradedMethods());
+        delegate.context = delegate.make("e", "f");
+        Assert.assertSame(delegate.make("f"), selector.selectContext(null, method));
+    }
+
+    @Test
+    public void testPointsToBudget() {
+        FixedSelector delegate = new FixedSelector();
+        BudgetedSelector selector = new BudgetedSelector(delegate, 0, 1, 0);
+        Context context = delegate.make("a", "b");
+        CSVar csVar = csManager.getCSVar(context, new Var(method, "v", null, 0));
+        csVar.getPointsToSet().addObject(csManager.getCSObj(
+                delegate.getEmptyContext(), new MockObj("o1", "o1", null)));
+        selector.checkPointsToSize(csVar);
+        Assert.assertTrue(selector.getDegradedMethods().isEmpty());
+        csVar.getPointsToSet().addObject(csManager.getCSObj(
+                delegate.getEmptyContext(), new MockObj("o2", "o2", null)));
+        selector.checkPointsToSize(csVar);
+        Assert.assertEquals(Map.of(method, 1), selector.getDegradedMethods());
+        delegate.context = delegate.make("c", "d");
+        Assert.assertSame(delegate.make("d"), selector.selectContext(null, method));
+        // heap contexts are limited to one element less than method contexts
+        CSMethod csMethod = csManager.getCSMethod(context, method);
+        delegate.heapContext = delegate.make("x");
+        Assert.assertSame(delegate.getEmptyContext(),
+                selector.selectHeapContext(csMethod, null));
+    }
+
+    @Test
+    public void testHeapBudget() {
+        FixedSelector delegate = new FixedSelector();
+        // any analysis uses more than one byte
+        BudgetedSelector selector = new BudgetedSelector(delegate, 0, 0, 1);
+        delegate.context = delegate.make("a");
+        // the heap is checked periodically
+        Context context = selector.selectContext(null, method);
+        Assert.assertSame(delegate.context, context);
+        for (int i = 0; i < 100000 && context != delegate.getEmptyContext(); ++i) {
+            context = selector.selectContext(null, method);
+        }
+        Assert.assertTrue(selector.isHeapExceeded());
+        Assert.assertSame(delegate.getEmptyContext(),
+                selector.selectContext(null, method));
+        CSMethod csMethod = csManager.getCSMethod(delegate.context, method);
+        Assert.assertSame(delegate.getEmptyContext(),
+                selector.selectHeapContext(csMethod, null));
+        // the delegate is not consulted after the heap budget is exceeded
+        Assert.assertEquals(0, delegate.heapSelections);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.IndexedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.VoidType;
+import pascal.taie.util.AnalysisException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class ConcurrentWorkListTest {
+
+    private final IndexedCSManager csManager =
+            new IndexedCSManager(true, "bit-vector");
+
+    private final PointsToSetFactory factory = csManager.getPointsToSetFactory();
+
+    private final Context context = ListContext.make();
+
+    private final JMethod method = new JMethod(new JClass(null, "C"), "m",
+            Set.of(), List.of(), VoidType.VOID, List.of(),
+            AnnotationHolder.emptyHolder(), null, null);
+
+    private final CSObj o1 = csManager.getCSObj(context,
+            new MockObj("o1", "o1", null));
+
+    private final CSObj o2 = csManager.getCSObj(context,
+            new MockObj("o2", "o2", null));
+
+    private List<Pointer> makePointers(int n) {
+        List<Pointer> pointers = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            pointers.add(csManager.getCSVar(context, new Var(method, "v" + i, null, i)));
+        }
+        return pointers;
+    }
+
+    @Test
+    public void testDrain() {
+        // propagates along a binary tree of pointers
+        int n = 1023;
+        List<Pointer> pointers = makePointers(n);
+        ConcurrentWorkList workList = new ConcurrentWorkList(4);
+        workList.addEntry(pointers.get(0), factory.newPointsToSet(o1));
+        workList.addEntry(pointers.get(0), factory.newPointsToSet(o2));
+        workList.drain(entry -> {
+            PointsToSet diff = entry.pointer().getPointsToSet()
+                    .addAllDiff(entry.pointsToSet());
+            int i = pointers.indexOf(entry.pointer());
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < n; ++child) {
+                workList.addEntry(pointers.get(child), diff);
+            }
+        });
+        Assert.assertTrue(workList.isEmpty());
+        for (Pointer p : pointers) {
+            Assert.assertEquals(Set.of(o1, o2), p.getPointsToSet().getObjects());
+        }
+    }
+
+    @Test
+    public void testDrainSharedSets() {
+        // all pointers propagate their sets to each other
+        List<Pointer> pointers = makePointers(16);
+        ConcurrentWorkList workList = new ConcurrentWorkList(4);
+        workList.addEntry(pointers.get(0), factory.newPointsToSet(o1));
+        workList.addEntry(pointers.get(15), factory.newPointsToSet(o2));
+        workList.drain(entry -> {
+            Pointer pointer = entry.pointer();
+            if (!pointer.getPointsToSet().addAllDiff(entry.pointsToSet()).isEmpty()) {
+                for (Pointer succ : pointers) {
+                    workList.addEntry(succ, pointer.getPointsToSet());
+                }
+            }
+        });
+        for (Pointer p : pointers) {
+            Assert.assertEquals(Set.of(o1, o2), p.getPointsToSet().getObjects());
+        }
+    }
+
+    @Test
+    public void testDrainReAddedEntry() {
+        // processing the entry of p re-adds p with the next object,
+        // so that all workers race on a single entry
+        int n = 200;
+        List<CSObj> objs = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            objs.add(csManager.getCSObj(context,
+                    new MockObj("obj" + i, "obj" + i, null)));
+        }
+        Pointer p = makePointers(1).get(0);
+        ConcurrentWorkList workList = new ConcurrentWorkList(4);
+        workList.addEntry(p, factory.newPointsToSet(objs.get(0)));
+        workList.drain(entry -> {
+            PointsToSet diff = entry.pointer().getPointsToSet()
+                    .addAllDiff(entry.pointsToSet());
+            diff.forEach(obj -> {
+                int next = objs.indexOf(obj) + 1;
+                if (next < n) {
+                    workList.addEntry(p, factory.newPointsToSet(objs.get(next)));
+                }
+            });
+        });
+        Assert.assertTrue(workList.isEmpty());
+        Assert.assertEquals(Set.copyOf(objs), p.getPointsToSet().getObjects());
+    }
+
+    @Test
+    public void testDrainFailure() {
+        ConcurrentWorkList workList = new ConcurrentWorkList(2);
+        workList.addEntry(makePointers(1).get(0), factory.newPointsToSet(o1));
+        try {
+            workList.drain(entry -> {
+                throw new IllegalStateException();
+            });
+            Assert.fail("expected AnalysisException");
+        } catch (AnalysisException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.IndexedCSManager;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class BitVectorPointsToSetTest {
+
+    private final IndexedCSManager csManager = new IndexedCSManager();
+
+    private final PointsToSetFactory factory =
+            PointsToSetFactory.of("bit-vector", csManager, false);
+
+    private CSObj obj(String name) {
+        return csManager.getCSObj(ListContext.make(),
+                new MockObj(name, name, null));
+    }
+
+    @Test
+    public void testAddAndContains() {
+        CSObj o1 = obj("o1"), o2 = obj("o2");
+        PointsToSet set = factory.newPointsToSet();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertTrue(set.addObject(o1));
+        Assert.assertFalse(set.addObject(o1));
+        Assert.assertTrue(set.contains(o1));
+        Assert.assertFalse(set.contains(o2));
+        Assert.assertEquals(1, set.size());
+        Assert.assertEquals(Set.of(o1), set.getObjects());
+    }
+
+    @Test
+    public void testAddAllDiff() {
+        CSObj o1 = obj("o1"), o2 = obj("o2"), o3 = obj("o3");
+        PointsToSet set = factory.newPointsToSet(o1);
+        set.addObject(o2);
+        PointsToSet other = factory.newPointsToSet(o2);
+        other.addObject(o3);
+        PointsToSet diff = set.addAllDiff(other);
+        Assert.assertEquals(Set.of(o3), diff.getObjects());
+        Assert.assertEquals(Set.of(o1, o2, o3), set.getObjects());
+        Assert.assertTrue(set.addAllDiff(other).isEmpty());
+        Assert.assertFalse(set.addAll(other));
+    }
+
+    @Test
+    public void testOtherRepresentations() {
+        CSObj o1 = obj("o1"), o2 = obj("o2");
+        PointsToSet set = factory.newPointsToSet(o1);
+        PointsToSet hybrid = PointsToSetFactory.make(o1);
+        hybrid.addObject(o2);
+        Assert.assertEquals(Set.of(o2), set.addAllDiff(hybrid).getObjects());
+        Assert.assertEquals(Set.of(o1, o2), set.getObjects());
+    }
+
+    @Test
+    public void testIterationOrder() {
+        List<CSObj> objs = List.of(obj("o1"), obj("o2"), obj("o3"));
+        PointsToSet set = factory.newPointsToSet();
+        for (int i = objs.size() - 1; i >= 0; --i) {
+            set.addObject(objs.get(i));
+        }
+        // objects are iterated in the order of their indexes
+        Assert.assertEquals(objs, set.objects().collect(Collectors.toList()));
+    }
+}
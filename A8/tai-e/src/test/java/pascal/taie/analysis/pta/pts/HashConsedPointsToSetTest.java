@@ -0,0 +1,107 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.IndexedCSManager;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+
+import java.util.Set;
+
+public class HashConsedPointsToSetTest {
+
+    private final CSManager csManager = new IndexedCSManager();
+
+    private final PointsToSetFactory factory =
+            PointsToSetFactory.of("hash-consed", csManager, false);
+
+    private CSObj obj(String name) {
+        return csManager.getCSObj(ListContext.make(),
+                new MockObj(name, name, null));
+    }
+
+    @Test
+    public void testSharedContent() {
+        CSObj o1 = obj("o1"), o2 = obj("o2");
+        PointsToSet s1 = factory.newPointsToSet(o1);
+        PointsToSet s2 = factory.newPointsToSet(o1);
+        Assert.assertTrue(s1.addObject(o2));
+        Assert.assertTrue(s2.addObject(o2));
+        Assert.assertFalse(s2.addObject(o2));
+        Assert.assertSame(s1.getObjects(), s2.getObjects());
+        Assert.assertEquals(Set.of(o1, o2), s1.getObjects());
+    }
+
+    @Test
+    public void testAddAll() {
+        CSObj o1 = obj("o1"), o2 = obj("o2"), o3 = obj("o3");
+        PointsToSet s1 = factory.newPointsToSet(o1);
+        s1.addObject(o2);
+        PointsToSet s2 = factory.newPointsToSet(o3);
+        Assert.assertTrue(s2.addAll(s1));
+        Assert.assertFalse(s2.addAll(s1));
+        Assert.assertEquals(Set.of(o1, o2, o3), s2.getObjects());
+        // sets of other representations are added object by object
+        Assert.assertTrue(s1.addAll(PointsToSetFactory.make(o3)));
+        Assert.assertSame(s2.getObjects(), s1.getObjects());
+    }
+
+    @Test
+    public void testAddAllDiff() {
+        CSObj o1 = obj("o1"), o2 = obj("o2"), o3 = obj("o3");
+        PointsToSet s1 = factory.newPointsToSet();
+        PointsToSet s2 = factory.newPointsToSet(o1);
+        s2.addObject(o2);
+        // the diff of an empty set is the added set
+        PointsToSet diff = s1.addAllDiff(s2);
+        Assert.assertSame(s2.getObjects(), diff.getObjects());
+        Assert.assertTrue(s1.addAllDiff(s2).isEmpty());
+        PointsToSet s3 = factory.newPointsToSet(o2);
+        s3.addObject(o3);
+        diff = s1.addAllDiff(s3);
+        Assert.assertEquals(Set.of(o3), diff.getObjects());
+        Assert.assertEquals(Set.of(o1, o2, o3), s1.getObjects());
+    }
+
+    @Test
+    public void testBoundedMemos() {
+        CSObj base = obj("base");
+        CSObj[] objs = new CSObj[100];
+        for (int i = 0; i < objs.length; ++i) {
+            objs[i] = obj("o" + i);
+            PointsToSet set = factory.newPointsToSet(base);
+            Assert.assertTrue(set.addObject(objs[i]));
+            Assert.assertEquals(2, set.size());
+        }
+        PointsToSet s1 = factory.newPointsToSet(base);
+        s1.addObject(objs[0]);
+        PointsToSet s2 = factory.newPointsToSet(base);
+        s2.addObject(objs[0]);
+        // hash-consing still shares contents whose memos were dropped
+        Assert.assertSame(s1.getObjects(), s2.getObjects());
+    }
+}